@@ -0,0 +1,113 @@
+package comparison;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Trie of ignored JSON paths, compiled once per comparator.
+ * <p>
+ * Paths are dot-separated object keys, e.g. {@code "meta.timestamp"}. Arrays are transparent: {@code "items.id"}
+ * ignores {@code id} in every element of {@code items}, and {@code "[]"} or {@code "[*]"} suffixes are accepted for
+ * readability. {@code "*"} matches any key, also next to exact keys: {@code "a.x"} and {@code "*.y"} together ignore
+ * both {@code a.x} and {@code a.y}. Array indexes such as {@code "items[0].id"} are not supported. The comparator
+ * walks the trie along with the documents, so checking whether a field is ignored costs one map lookup instead of
+ * building and matching its full path.
+ */
+final class IgnoredPaths {
+
+    private static final String ANY_KEY = "*";
+    private static final Pattern INDEX = Pattern.compile("\\[\\d+]");
+
+    private final Map<String, IgnoredPaths> children = new HashMap<>();
+    private boolean ignored;
+
+    private IgnoredPaths() {
+    }
+
+    /**
+     * Compiles the paths.
+     *
+     * @param paths ignored paths
+     * @return root node, or null if there are no paths
+     */
+    /* default */ static IgnoredPaths compile(final Iterable<String> paths) {
+        IgnoredPaths root = null;
+        for (final var path : paths) {
+            if (root == null) {
+                root = new IgnoredPaths();
+            }
+            var node = root;
+            for (final var segment : path.split("\\.")) {
+                final var key = segment.replace("[*]", "").replace("[]", "");
+                node = node.children.computeIfAbsent(key, k -> new IgnoredPaths());
+            }
+            node.ignored = true;
+        }
+        if (root != null) {
+            root.mergeAnyKey();
+        }
+        return root;
+    }
+
+    /**
+     * Returns whether the path has an array index, e.g. {@code "items[0].id"}.
+     *
+     * @param path ignored path
+     * @return true if the path cannot be compiled
+     */
+    /* default */ static boolean hasIndex(final String path) {
+        return INDEX.matcher(path).find();
+    }
+
+    /**
+     * Returns node of the object field.
+     *
+     * @param node node of the object, may be null
+     * @param key  field name
+     * @return node of the field, or null if no ignored path goes through the field
+     */
+    /* default */ static IgnoredPaths child(final IgnoredPaths node, final String key) {
+        IgnoredPaths child = null;
+        if (node != null) {
+            child = node.children.get(key);
+            if (child == null) {
+                child = node.children.get(ANY_KEY);
+            }
+        }
+        return child;
+    }
+
+    /**
+     * Merges paths under {@code "*"} into the exact keys next to it, so a lookup of an exact key also finds them.
+     */
+    private void mergeAnyKey() {
+        final var anyKey = children.get(ANY_KEY);
+        if (anyKey != null) {
+            children.forEach((key, child) -> {
+                if (!ANY_KEY.equals(key)) {
+                    child.add(anyKey);
+                }
+            });
+        }
+        children.values().forEach(IgnoredPaths::mergeAnyKey);
+    }
+
+    /**
+     * Adds paths of the other node to this one.
+     */
+    private void add(final IgnoredPaths other) {
+        ignored |= other.ignored;
+        other.children.forEach((key, child) -> children.computeIfAbsent(key, k -> new IgnoredPaths()).add(child));
+    }
+
+    /**
+     * Returns whether the node ends an ignored path.
+     *
+     * @param node node, may be null
+     * @return true if the value at the node is ignored
+     */
+    /* default */ static boolean isIgnored(final IgnoredPaths node) {
+        return node != null && node.ignored;
+    }
+}
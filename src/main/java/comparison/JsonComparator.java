@@ -0,0 +1,437 @@
+package comparison;
+
+import io.restassured.response.Response;
+import org.apache.commons.lang3.Validate;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Structural comparator of JSON documents for large responses.
+ * <p>
+ * Documents are walked once, side by side, and the walk stops as soon as the max number of differences is found, so
+ * a fail-fast comparison of two big documents ends at the first mismatch. Ignored paths are compiled once into a trie
+ * that is walked along with the documents. Arrays that are not ordered are matched by structural hashes of their
+ * elements instead of comparing every pair, so comparing arrays of 50k elements stays near-linear.
+ *
+ * <pre>{@code
+ * JsonComparator comparator = JsonComparator.newBuilder()
+ *         .setOrdered(false)
+ *         .setIgnoredPaths("id", "items.createdAt")
+ *         .setFailFast(true)
+ *         .build();
+ * comparator.assertEquals(response, expected);
+ * }</pre>
+ */
+public final class JsonComparator {
+
+    /**
+     * Max length of a value printed in a difference.
+     */
+    private static final int MAX_VALUE_LENGTH = 100;
+
+    private final List<String> ignoredPaths = new ArrayList<>();
+
+    /**
+     * Compiled {@link #ignoredPaths}, null if there are none.
+     */
+    private IgnoredPaths ignored;
+
+    /**
+     * Whether order of array elements matters. True by default.
+     */
+    private boolean ordered = true;
+
+    /**
+     * Whether to stop at the first difference.
+     */
+    private boolean failFast;
+
+    /**
+     * Max number of reported differences, the comparison stops once it is reached. 20 by default.
+     */
+    private int maxDifferences = 20;
+
+    private JsonComparator() {
+    }
+
+    /**
+     * Creates a new JsonComparator builder.
+     *
+     * @return a new Builder instance.
+     */
+    public static JsonComparator.Builder newBuilder() {
+        return new JsonComparator().new Builder();
+    }
+
+    /**
+     * Compares the documents. Arguments go in the same order as in {@link #assertEquals(Object, Object)}.
+     *
+     * @param actual   actual JSON object, array or primitive value.
+     * @param expected expected JSON object, array or primitive value.
+     * @return differences in document order, e.g. {@code "$.items[2].name: expected \"a\" but was \"b\""}, at most
+     * the max number of differences, empty if the documents are equal.
+     */
+    public List<String> compare(final Object actual, final Object expected) {
+        final var differences = new Differences(failFast ? 1 : maxDifferences);
+        diff(expected, actual, ignored, Location.ROOT, differences);
+        return differences.items;
+    }
+
+    /**
+     * Asserts that the documents are equal.
+     *
+     * @param actual   actual JSON object, array or primitive value.
+     * @param expected expected JSON object, array or primitive value.
+     * @throws AssertionError with the found differences if the documents are not equal.
+     */
+    public void assertEquals(final Object actual, final Object expected) {
+        final var differences = compare(actual, expected);
+        if (!differences.isEmpty()) {
+            throw new AssertionError("JSON documents are different:\n" + String.join("\n", differences));
+        }
+    }
+
+    /**
+     * Asserts that the response body is equal to the expected document.
+     *
+     * @param actual   response with JSON body.
+     * @param expected expected JSON object, array or primitive value.
+     * @throws AssertionError with the found differences if the documents are not equal.
+     */
+    public void assertEquals(final Response actual, final Object expected) {
+        assertEquals(new JSONTokener(actual.asString()).nextValue(), expected);
+    }
+
+    private void diff(final Object expected, final Object actual, final IgnoredPaths node, final Location location,
+                      final Differences differences) {
+        if (expected instanceof JSONObject e && actual instanceof JSONObject a) {
+            diffObjects(e, a, node, location, differences);
+        } else if (expected instanceof JSONArray e && actual instanceof JSONArray a) {
+            if (ordered) {
+                diffOrderedArrays(e, a, node, location, differences);
+            } else {
+                diffUnorderedArrays(e, a, node, location, differences);
+            }
+        } else if (!valuesEqual(expected, actual)) {
+            differences.add(location, STR."expected \{format(expected)} but was \{format(actual)}");
+        }
+    }
+
+    private void diffObjects(final JSONObject expected, final JSONObject actual, final IgnoredPaths node,
+                             final Location location, final Differences differences) {
+        final var keys = expected.keySet().iterator();
+        while (keys.hasNext() && !differences.isFull()) {
+            final var key = keys.next();
+            final var child = IgnoredPaths.child(node, key);
+            if (!IgnoredPaths.isIgnored(child) && actual.has(key)) {
+                diff(expected.opt(key), actual.opt(key), child, location.key(key), differences);
+            } else if (!IgnoredPaths.isIgnored(child)) {
+                differences.add(location.key(key), STR."expected \{format(expected.opt(key))} but field is missing");
+            }
+        }
+
+        final var extraKeys = actual.keySet().iterator();
+        while (extraKeys.hasNext() && !differences.isFull()) {
+            final var key = extraKeys.next();
+            if (!expected.has(key) && !IgnoredPaths.isIgnored(IgnoredPaths.child(node, key))) {
+                differences.add(location.key(key), STR."unexpected field with value \{format(actual.opt(key))}");
+            }
+        }
+    }
+
+    private void diffOrderedArrays(final JSONArray expected, final JSONArray actual, final IgnoredPaths node,
+                                   final Location location, final Differences differences) {
+        if (expected.length() != actual.length()) {
+            differences.add(location, STR."expected \{expected.length()} elements but was \{actual.length()}");
+        }
+        final int length = Math.min(expected.length(), actual.length());
+        for (int i = 0; i < length && !differences.isFull(); i++) {
+            diff(expected.opt(i), actual.opt(i), node, location.index(i), differences);
+        }
+    }
+
+    /**
+     * Matches elements by structural hash: every expected element is compared only with actual elements of the same
+     * hash, in practice with one element.
+     */
+    private void diffUnorderedArrays(final JSONArray expected, final JSONArray actual, final IgnoredPaths node,
+                                     final Location location, final Differences differences) {
+        final Map<Integer, Deque<Integer>> unmatched = new HashMap<>();
+        for (int i = 0; i < actual.length(); i++) {
+            unmatched.computeIfAbsent(hash(actual.opt(i), node), k -> new ArrayDeque<>()).add(i);
+        }
+
+        for (int i = 0; i < expected.length() && !differences.isFull(); i++) {
+            final var element = expected.opt(i);
+            final var candidates = unmatched.get(hash(element, node));
+            if (!removeEqual(candidates, element, actual, node)) {
+                differences.add(location.index(i), STR."expected element not found: \{format(element)}");
+            }
+        }
+
+        final var extra = unmatched.values().stream()
+                .flatMap(Deque::stream)
+                .sorted()
+                .iterator();
+        while (extra.hasNext() && !differences.isFull()) {
+            final int index = extra.next();
+            differences.add(location.index(index), STR."unexpected element: \{format(actual.opt(index))}");
+        }
+    }
+
+    /**
+     * Removes the first candidate equal to the element.
+     *
+     * @return whether an equal candidate was found
+     */
+    private boolean removeEqual(final Deque<Integer> candidates, final Object element, final JSONArray actual,
+                                final IgnoredPaths node) {
+        boolean found = false;
+        if (candidates != null) {
+            final var iterator = candidates.iterator();
+            while (iterator.hasNext() && !found) {
+                found = isEqual(element, actual.opt(iterator.next()), node);
+                if (found) {
+                    iterator.remove();
+                }
+            }
+        }
+        return found;
+    }
+
+    private boolean isEqual(final Object expected, final Object actual, final IgnoredPaths node) {
+        final var differences = new Differences(1);
+        diff(expected, actual, node, Location.ROOT, differences);
+        return differences.items.isEmpty();
+    }
+
+    /**
+     * Returns hash consistent with {@link #isEqual}: ignored fields are skipped, numbers are hashed by value.
+     */
+    private int hash(final Object value, final IgnoredPaths node) {
+        final int hash;
+        if (value instanceof JSONObject json) {
+            hash = hashObject(json, node);
+        } else if (value instanceof JSONArray json) {
+            hash = hashArray(json, node);
+        } else {
+            hash = hashPrimitive(value);
+        }
+        return hash;
+    }
+
+    private int hashObject(final JSONObject json, final IgnoredPaths node) {
+        int hash = 0;
+        // Sum does not depend on the order of keys
+        for (final var key : json.keySet()) {
+            final var child = IgnoredPaths.child(node, key);
+            if (!IgnoredPaths.isIgnored(child)) {
+                hash += 31 * key.hashCode() + hash(json.opt(key), child);
+            }
+        }
+        return hash;
+    }
+
+    private int hashArray(final JSONArray json, final IgnoredPaths node) {
+        int hash = 1;
+        for (final var element : json) {
+            hash = ordered ? 31 * hash + hash(element, node) : hash + hash(element, node);
+        }
+        return hash;
+    }
+
+    private static int hashPrimitive(final Object value) {
+        int hash = 0;
+        if (value instanceof Number number) {
+            final var decimal = toDecimal(number);
+            hash = decimal == null ? number.hashCode() : decimal.stripTrailingZeros().hashCode();
+        } else if (value != null && !JSONObject.NULL.equals(value)) {
+            hash = value.hashCode();
+        }
+        return hash;
+    }
+
+    private static boolean valuesEqual(final Object expected, final Object actual) {
+        final boolean equal;
+        if (expected instanceof Number e && actual instanceof Number a) {
+            final var x = toDecimal(e);
+            final var y = toDecimal(a);
+            equal = x == null || y == null ? e.equals(a) : x.compareTo(y) == 0;
+        } else {
+            equal = Objects.equals(expected == null ? JSONObject.NULL : expected,
+                    actual == null ? JSONObject.NULL : actual);
+        }
+        return equal;
+    }
+
+    /**
+     * Converts number to decimal, so 1, 1L and 1.0 are equal.
+     *
+     * @return decimal, or null for NaN and infinities
+     */
+    private static BigDecimal toDecimal(final Number number) {
+        BigDecimal decimal = null;
+        if (number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte) {
+            decimal = BigDecimal.valueOf(number.longValue());
+        } else if (number instanceof BigDecimal value) {
+            decimal = value;
+        } else if (number instanceof BigInteger value) {
+            decimal = new BigDecimal(value);
+        } else if (Double.isFinite(number.doubleValue())) {
+            decimal = new BigDecimal(number.toString());
+        }
+        return decimal;
+    }
+
+    /**
+     * Formats value for a difference. Only the beginning of a large value is printed, without serializing all of it.
+     */
+    private static String format(final Object value) {
+        final var text = new StringBuilder();
+        preview(value, text);
+        return text.length() > MAX_VALUE_LENGTH ? text.substring(0, MAX_VALUE_LENGTH) + "..." : text.toString();
+    }
+
+    private static void preview(final Object value, final StringBuilder text) {
+        if (value instanceof JSONObject json) {
+            previewObject(json, text);
+        } else if (value instanceof JSONArray json) {
+            previewArray(json, text);
+        } else if (value instanceof String string) {
+            text.append(JSONObject.quote(string));
+        } else {
+            text.append(value == null ? JSONObject.NULL : value);
+        }
+    }
+
+    private static void previewObject(final JSONObject json, final StringBuilder text) {
+        text.append('{');
+        final var keys = json.keySet().iterator();
+        while (keys.hasNext() && text.length() <= MAX_VALUE_LENGTH) {
+            final var key = keys.next();
+            text.append(JSONObject.quote(key)).append(':');
+            preview(json.opt(key), text);
+            text.append(keys.hasNext() ? "," : "");
+        }
+        text.append('}');
+    }
+
+    private static void previewArray(final JSONArray json, final StringBuilder text) {
+        text.append('[');
+        for (int i = 0; i < json.length() && text.length() <= MAX_VALUE_LENGTH; i++) {
+            text.append(i > 0 ? "," : "");
+            preview(json.opt(i), text);
+        }
+        text.append(']');
+    }
+
+    /**
+     * Found differences, up to the limit.
+     */
+    private static final class Differences {
+
+        private final List<String> items = new ArrayList<>();
+        private final int limit;
+
+        private Differences(final int limit) {
+            this.limit = limit;
+        }
+
+        private void add(final Location location, final String message) {
+            if (!isFull()) {
+                items.add(location + ": " + message);
+            }
+        }
+
+        private boolean isFull() {
+            return items.size() >= limit;
+        }
+    }
+
+    /**
+     * Location of a value in the document, rendered only when a difference is reported.
+     *
+     * @param parent location of the parent object or array, null for the root
+     * @param key    field name, or null for an array element
+     * @param index  index of the array element
+     */
+    private record Location(Location parent, String key, int index) {
+
+        private static final Location ROOT = new Location(null, null, -1);
+
+        private Location key(final String name) {
+            return new Location(this, name, -1);
+        }
+
+        private Location index(final int position) {
+            return new Location(this, null, position);
+        }
+
+        @Override
+        public String toString() {
+            final String text;
+            if (parent == null) {
+                text = "$";
+            } else if (key == null) {
+                text = STR."\{parent}[\{index}]";
+            } else if (key.indexOf('.') >= 0 || key.indexOf('[') >= 0) {
+                text = STR."\{parent}[\"\{key}\"]";
+            } else {
+                text = STR."\{parent}.\{key}";
+            }
+            return text;
+        }
+    }
+
+    /**
+     * Builder class for {@link JsonComparator}.
+     */
+    @SuppressWarnings("PMD.LinguisticNaming")
+    public final class Builder {
+
+        private Builder() {
+            // Disabled
+        }
+
+        public Builder setIgnoredPaths(final String... paths) {
+            for (final var path : paths) {
+                Validate.isTrue(!IgnoredPaths.hasIndex(path),
+                        "Array indexes are not supported in ignored paths, use \"items.id\" instead: %s", path);
+            }
+            ignoredPaths.addAll(List.of(paths));
+            return this;
+        }
+
+        public Builder setOrdered(final boolean ordered) {
+            JsonComparator.this.ordered = ordered;
+            return this;
+        }
+
+        public Builder setFailFast(final boolean failFast) {
+            JsonComparator.this.failFast = failFast;
+            return this;
+        }
+
+        public Builder setMaxDifferences(final int maxDifferences) {
+            Validate.isTrue(maxDifferences > 0, "Max differences must be positive: %d", maxDifferences);
+            JsonComparator.this.maxDifferences = maxDifferences;
+            return this;
+        }
+
+        public JsonComparator build() {
+            ignored = IgnoredPaths.compile(ignoredPaths);
+            return JsonComparator.this;
+        }
+    }
+}
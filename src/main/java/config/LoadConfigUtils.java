@@ -3,18 +3,21 @@ package config;
 import com.google.common.annotations.VisibleForTesting;
 import com.mbi.request.RequestBuilder;
 import io.restassured.response.Response;
+import org.apache.commons.lang3.Validate;
+import org.json.JSONException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.ssm.SsmClient;
-import software.amazon.awssdk.services.ssm.model.GetParameterRequest;
-import software.amazon.awssdk.services.ssm.model.GetParametersRequest;
 
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 /**
@@ -23,80 +26,264 @@ import java.util.stream.Stream;
 public final class LoadConfigUtils {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(LoadConfigUtils.class);
-    private static final Map<String, String> SSM_CACHE = new ConcurrentHashMap<>();
+    private static final SsmParameterCache SSM_CACHE = new SsmParameterCache(LoadConfigUtils::sharedSsmClient);
+    private static final Supplier<SsmClient> DEFAULT_SSM_CLIENT_PROVIDER = () -> SsmClient.builder().build();
+
+    /**
+     * Guards the shared SSM client and its provider.
+     */
+    private static final Object SSM_CLIENT_LOCK = new Object();
+    private static Supplier<SsmClient> ssmClientProvider = DEFAULT_SSM_CLIENT_PROVIDER;
+    private static SsmClient sharedSsmClient;
+    private static boolean shutdownHookRegistered;
 
     private LoadConfigUtils() {
         // Prevent instantiation
     }
 
     /**
-     * Reads a single SSM parameter, with caching.
+     * Reads a single SSM parameter, with caching. Concurrent reads of the same parameter make one SSM call.
+     * See {@link SsmParameterCache} for expiration and refresh of cached values.
      *
      * @param paramName parameter name
      * @return parameter value
      */
     public static String readSsmParameter(final String paramName) {
-        return SSM_CACHE.computeIfAbsent(paramName, key -> {
-            try (var client = ssmClient()) {
-                final var request = GetParameterRequest.builder()
-                        .name(key)
-                        .withDecryption(true)
-                        .build();
-
-                return client.getParameter(request)
-                        .parameter()
-                        .value();
-            } catch (Exception e) {
-                LOGGER.error("Failed to read SSM parameter '{}': {}", key, e.toString());
-                throw new IllegalStateException("Unable to read SSM parameter: " + key, e);
-            }
-        });
+        final String value;
+        try {
+            value = SSM_CACHE.getAll(List.of(paramName)).get(paramName);
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to read SSM parameter '{}': {}", paramName, e.toString());
+            throw new IllegalStateException("Unable to read SSM parameter: " + paramName, e);
+        }
+        if (value == null) {
+            throw new IllegalStateException(STR."Unable to read SSM parameter: \{paramName}, it is not found");
+        }
+        return value;
     }
 
     /**
-     * Reads multiple SSM parameters in a batch, with caching.
+     * Reads multiple SSM parameters in batches of 10, in parallel, with caching.
+     * Concurrent reads of the same parameter make one SSM call.
      *
      * @param names list of parameter names
-     * @return map of name → value
+     * @return map of name → value, without parameters that are not found
      */
     public static Map<String, String> readSsmParameters(final String... names) {
-        // Collect missing keys
-        final List<String> missingKeys = Arrays.stream(names)
-                .filter(name -> !SSM_CACHE.containsKey(name))
+        final Map<String, String> values;
+        try {
+            values = SSM_CACHE.getAll(Arrays.asList(names));
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to batch read SSM parameters: {}", e.toString());
+            throw new IllegalStateException("Unable to batch read SSM parameters", e);
+        }
+
+        final var notFound = Arrays.stream(names)
+                .filter(name -> !values.containsKey(name))
+                .distinct()
                 .toList();
+        if (!notFound.isEmpty()) {
+            LOGGER.warn("Some SSM parameters not found: {}", notFound);
+        }
+        return values;
+    }
 
-        if (!missingKeys.isEmpty()) {
-            try (var client = ssmClient()) {
-                final var request = GetParametersRequest.builder()
-                        .names(missingKeys)
-                        .withDecryption(true)
-                        .build();
-
-                final var response = client.getParameters(request);
-                response.parameters().forEach(p -> SSM_CACHE.put(p.name(), p.value()));
-
-                if (!response.invalidParameters().isEmpty()) {
-                    LOGGER.warn("Some SSM parameters not found: {}", response.invalidParameters());
-                }
-            } catch (Exception e) {
-                LOGGER.error("Failed to batch read SSM parameters: {}", e.toString());
-                throw new IllegalStateException("Unable to batch read SSM parameters", e);
+    /**
+     * Reads all SSM parameters under the path into the cache, e.g. at suite start, so later reads of them are served
+     * from memory. Pages through GetParametersByPath.
+     *
+     * @param path      path prefix, e.g. "/qa/service"
+     * @param recursive whether to include parameters of nested paths
+     * @return number of cached parameters
+     */
+    public static int preloadSsmParameters(final String path, final boolean recursive) {
+        try {
+            final int count = SSM_CACHE.preload(path, recursive);
+            LOGGER.info("Preloaded {} SSM parameters under '{}'", count, path);
+            return count;
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to preload SSM parameters under '{}': {}", path, e.toString());
+            throw new IllegalStateException("Unable to preload SSM parameters: " + path, e);
+        }
+    }
+
+    /**
+     * Reads all SSM parameters under the path into the cache in the background, e.g. at suite start when cached values
+     * can be used until then. {@link #awaitSsmReads(Duration)} waits for it too.
+     *
+     * @param path      path prefix, e.g. "/qa/service"
+     * @param recursive whether to include parameters of nested paths
+     * @return number of cached parameters, completed exceptionally if the parameters cannot be read
+     */
+    public static CompletableFuture<Integer> preloadSsmParametersInBackground(final String path,
+                                                                              final boolean recursive) {
+        return SSM_CACHE.preloadInBackground(path, recursive).whenComplete((count, error) -> {
+            if (error == null) {
+                LOGGER.info("Preloaded {} SSM parameters under '{}'", count, path);
+            } else {
+                LOGGER.error("Failed to preload SSM parameters under '{}': {}", path, error.toString());
             }
+        });
+    }
+
+    /**
+     * Reads SSM parameters from the local encrypted snapshot into the cache and refreshes them in the background, so
+     * a run starts without waiting for SSM. Does nothing unless the {@code SSM_SNAPSHOT_KEY} environment variable is
+     * set. The snapshot is stored in {@code build/ssm-snapshot.enc} and its values are used for one hour after they
+     * were fetched from SSM; system properties {@code ssm.snapshot.file} and {@code ssm.snapshot.ttl} (e.g.
+     * {@code PT30M}) change that. A missing or unreadable snapshot and expired values are ignored.
+     *
+     * @return number of parameters read from the snapshot
+     */
+    public static int loadSsmSnapshot() {
+        final var snapshot = SsmSnapshot.fromEnvironment();
+        return snapshot == null ? 0 : loadSsmSnapshot(snapshot);
+    }
+
+    @VisibleForTesting
+    static int loadSsmSnapshot(final SsmSnapshot snapshot) {
+        Map<String, SsmValue> values = Map.of();
+        try {
+            values = snapshot.read();
+        } catch (IOException | GeneralSecurityException | JSONException | IllegalArgumentException e) {
+            LOGGER.warn("Ignoring SSM snapshot {}: {}", snapshot.getFile(), e.toString());
+        }
+        values.forEach(SSM_CACHE::put);
+        SSM_CACHE.refresh(values.keySet());
+        LOGGER.info("Read {} SSM parameters from snapshot {}", values.size(), snapshot.getFile());
+        return values.size();
+    }
+
+    /**
+     * Waits for SSM reads in progress, including background refreshes of snapshot values, to finish. Call it before
+     * {@link #saveSsmSnapshot()}, so refreshed values are saved.
+     *
+     * @param timeout max time to wait
+     * @return whether all reads finished in time
+     */
+    public static boolean awaitSsmReads(final Duration timeout) {
+        return SSM_CACHE.awaitInFlight(timeout);
+    }
+
+    /**
+     * Writes cached SSM parameters to the local encrypted snapshot, replacing it. Every value keeps the time it was
+     * fetched from SSM, so values that could not be refreshed still expire. Does nothing unless the
+     * {@code SSM_SNAPSHOT_KEY} environment variable is set. See {@link #loadSsmSnapshot()}.
+     */
+    public static void saveSsmSnapshot() {
+        final var snapshot = SsmSnapshot.fromEnvironment();
+        if (snapshot != null) {
+            saveSsmSnapshot(snapshot);
+        }
+    }
+
+    @VisibleForTesting
+    static void saveSsmSnapshot(final SsmSnapshot snapshot) {
+        final var values = SSM_CACHE.values();
+        try {
+            snapshot.write(values);
+            LOGGER.info("Saved {} SSM parameters to snapshot {}", values.size(), snapshot.getFile());
+        } catch (IOException | GeneralSecurityException e) {
+            LOGGER.warn("Failed to save SSM snapshot {}: {}", snapshot.getFile(), e.toString());
         }
+    }
+
+    /**
+     * Sets time to keep SSM parameter values. A value read in the last fifth of its TTL is refreshed in the
+     * background. 15 minutes by default.
+     *
+     * @param ttl time to keep values
+     */
+    public static void setSsmCacheTtl(final Duration ttl) {
+        SSM_CACHE.setTtl(ttl);
+    }
 
-        // Build result map from cache
-        return Arrays.stream(names)
-                .filter(SSM_CACHE::containsKey)
-                .collect(Collectors.toMap(name -> name, SSM_CACHE::get));
+    /**
+     * Sets time to remember that an SSM parameter is not found. 1 minute by default.
+     *
+     * @param ttl time to keep names that are not found
+     */
+    public static void setSsmNegativeCacheTtl(final Duration ttl) {
+        SSM_CACHE.setNegativeTtl(ttl);
     }
 
     /**
-     * Creates an instance of SSM client.
+     * Returns statistics of the SSM parameter cache.
+     *
+     * @return hits, misses and load times since the JVM start
+     */
+    public static SsmCacheStats getSsmCacheStats() {
+        return SSM_CACHE.stats();
+    }
+
+    /**
+     * Creates an instance of SSM client with the current provider. The caller owns the client and closes it.
      *
      * @return SSM client
      */
     public static SsmClient ssmClient() {
-        return SsmClient.builder().build();
+        final Supplier<SsmClient> provider;
+        synchronized (SSM_CLIENT_LOCK) {
+            provider = ssmClientProvider;
+        }
+        return provider.get();
+    }
+
+    /**
+     * Returns SSM client shared by the parameter reads of all threads. The client is created by the provider on first
+     * use and closed on JVM shutdown, so credentials, region and connection pool are resolved once.
+     *
+     * @return SSM client
+     */
+    /* default */ static SsmClient sharedSsmClient() {
+        synchronized (SSM_CLIENT_LOCK) {
+            if (sharedSsmClient == null) {
+                sharedSsmClient = ssmClientProvider.get();
+                registerShutdownHook();
+            }
+            return sharedSsmClient;
+        }
+    }
+
+    /**
+     * Replaces the provider of the shared SSM client, e.g. to run against a local SSM stand-in:
+     * <pre>{@code
+     * LoadConfigUtils.setSsmClientProvider(() -> SsmClient.builder()
+     *         .endpointOverride(URI.create("http://localhost:4566"))
+     *         .region(Region.US_EAST_1)
+     *         .build());
+     * }</pre>
+     * The current shared client is closed, the next read creates a new one with the provider.
+     *
+     * @param provider creates SSM clients
+     */
+    public static void setSsmClientProvider(final Supplier<SsmClient> provider) {
+        Validate.notNull(provider, "SSM client provider must not be null");
+        synchronized (SSM_CLIENT_LOCK) {
+            closeSsmClient();
+            ssmClientProvider = provider;
+        }
+    }
+
+    /**
+     * Closes the shared SSM client if it is created, e.g. before the JVM shutdown when no more reads will follow. The
+     * next read creates a new one. Clients created by {@link #ssmClient()} are not affected.
+     */
+    public static void closeSsmClient() {
+        synchronized (SSM_CLIENT_LOCK) {
+            if (sharedSsmClient != null) {
+                final var client = sharedSsmClient;
+                sharedSsmClient = null;
+                client.close();
+            }
+        }
+    }
+
+    private static void registerShutdownHook() {
+        if (!shutdownHookRegistered) {
+            Runtime.getRuntime().addShutdownHook(new Thread(LoadConfigUtils::closeSsmClient, "ssm-client-shutdown"));
+            shutdownHookRegistered = true;
+        }
     }
 
     /**
@@ -154,4 +341,12 @@ public final class LoadConfigUtils {
     static void putToCacheForTests(final String key, final String value) {
         SSM_CACHE.put(key, value);
     }
+
+    /**
+     * For test purposes only.
+     */
+    @VisibleForTesting
+    static void resetSsmClientProviderForTests() {
+        setSsmClientProvider(DEFAULT_SSM_CLIENT_PROVIDER);
+    }
 }
@@ -0,0 +1,37 @@
+package config;
+
+import java.time.Duration;
+
+/**
+ * Statistics of the SSM parameter cache since the JVM start.
+ *
+ * @param hitCount         reads of a name served from the cache, including names cached as not found
+ * @param missCount        reads of a name that waited for a fetch
+ * @param loadCount        successful SSM calls: GetParameters calls, including background refreshes, and
+ *                         GetParametersByPath pages of preloads
+ * @param loadFailureCount failed SSM calls of both kinds
+ * @param totalLoadTime    time spent in SSM calls
+ */
+public record SsmCacheStats(long hitCount, long missCount, long loadCount, long loadFailureCount,
+                            Duration totalLoadTime) {
+
+    /**
+     * Returns share of reads served from the cache.
+     *
+     * @return hit rate from 0 to 1, 1 if there were no reads
+     */
+    public double hitRate() {
+        final long reads = hitCount + missCount;
+        return reads == 0 ? 1 : (double) hitCount / reads;
+    }
+
+    /**
+     * Returns average time of an SSM call.
+     *
+     * @return average load time, zero if there were no calls
+     */
+    public Duration averageLoadTime() {
+        final long calls = loadCount + loadFailureCount;
+        return calls == 0 ? Duration.ZERO : totalLoadTime.dividedBy(calls);
+    }
+}
@@ -0,0 +1,434 @@
+package config;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.ssm.SsmClient;
+import software.amazon.awssdk.services.ssm.model.GetParametersByPathRequest;
+import software.amazon.awssdk.services.ssm.model.GetParametersRequest;
+import software.amazon.awssdk.services.ssm.model.Parameter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Cache of SSM parameter values with per-entry TTL, refresh-ahead and negative caching.
+ * <p>
+ * Missing names are fetched in chunks of {@value #MAX_NAMES_PER_CALL}, the first chunk on the caller thread and the
+ * others in parallel. A read in progress is shared per name, so concurrent reads of a name make one SSM call. A value
+ * read in the last fifth of its TTL is returned at once and refreshed in the background, so rotated secrets are picked
+ * up without adding latency. Names that are not found are cached too, for a shorter TTL.
+ */
+final class SsmParameterCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SsmParameterCache.class);
+
+    /**
+     * Max number of names in one GetParameters call, limited by AWS.
+     */
+    private static final int MAX_NAMES_PER_CALL = 10;
+
+    /**
+     * Max number of parameters in one GetParametersByPath page, limited by AWS.
+     */
+    private static final int MAX_RESULTS_PER_PAGE = 10;
+
+    /**
+     * A value is refreshed in the background in the last 1/{@value} of its TTL.
+     */
+    private static final int REFRESH_WINDOW_DIVISOR = 5;
+
+    /**
+     * A failed background refresh is retried after 1/{@value} of the TTL, so reads in between do not call SSM again.
+     */
+    private static final int REFRESH_RETRY_DIVISOR = 20;
+
+    /**
+     * Fetches chunks of parameters and refreshes values in the background, one virtual thread per task.
+     */
+    private static final ExecutorService SSM_EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("common-test-utils-ssm-", 0).factory());
+
+    private final Supplier<SsmClient> client;
+    private final LongSupplier ticker;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Reads in progress by parameter name, completed with null if the parameter is not found.
+     */
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Preloads running in the background.
+     */
+    private final Set<CompletableFuture<Integer>> preloads = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    /**
+     * Time to keep a value. 15 minutes by default.
+     */
+    private volatile Duration ttl = Duration.ofMinutes(15);
+
+    /**
+     * Time to remember that a name is not found. 1 minute by default.
+     */
+    private volatile Duration negativeTtl = Duration.ofMinutes(1);
+
+    /**
+     * Creates a cache.
+     *
+     * @param client supplies the client to fetch parameters with, called on the thread that reads the cache
+     */
+    /* default */ SsmParameterCache(final Supplier<SsmClient> client) {
+        this(client, System::nanoTime);
+    }
+
+    /**
+     * Creates a cache with the time source, e.g. a manual one in tests.
+     *
+     * @param client supplies the client to fetch parameters with, called on the thread that reads the cache
+     * @param ticker nanosecond time source like {@link System#nanoTime()}
+     */
+    /* default */ SsmParameterCache(final Supplier<SsmClient> client, final LongSupplier ticker) {
+        this.client = client;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Returns values, fetching missing and expired ones.
+     *
+     * @param names parameter names
+     * @return values by name, without parameters that are not found
+     * @throws java.util.concurrent.CompletionException if a fetch fails
+     */
+    /* default */ Map<String, String> getAll(final Collection<String> names) {
+        final long now = ticker.getAsLong();
+        final Map<String, String> values = new HashMap<>();
+        final Map<String, CompletableFuture<String>> pending = new HashMap<>();
+        final List<String> owned = new ArrayList<>();
+        final List<String> stale = new ArrayList<>();
+        for (final var name : new LinkedHashSet<>(names)) {
+            final var entry = entries.get(name);
+            if (entry != null && !entry.isExpired(now)) {
+                hits.increment();
+                if (entry.value() != null) {
+                    values.put(name, entry.value());
+                }
+                if (entry.isStale(now)) {
+                    stale.add(name);
+                }
+            } else {
+                misses.increment();
+                final var future = new CompletableFuture<String>();
+                final var current = inFlight.putIfAbsent(name, future);
+                if (current == null) {
+                    owned.add(name);
+                }
+                pending.put(name, current == null ? future : current);
+            }
+        }
+
+        refresh(stale);
+        fetch(owned);
+        pending.forEach((name, future) -> {
+            final var value = future.join();
+            if (value != null) {
+                values.put(name, value);
+            }
+        });
+        return values;
+    }
+
+    /**
+     * Fetches all parameters under the path, page by page, and caches them.
+     *
+     * @param path      path prefix, e.g. "/qa/service"
+     * @param recursive whether to include parameters of nested paths
+     * @return number of cached parameters
+     */
+    /* default */ int preload(final String path, final boolean recursive) {
+        return preload(client.get(), path, recursive);
+    }
+
+    private int preload(final SsmClient ssmClient, final String path, final boolean recursive) {
+        var count = 0;
+        String nextToken = null;
+        do {
+            final var request = GetParametersByPathRequest.builder()
+                    .path(path)
+                    .recursive(recursive)
+                    .withDecryption(true)
+                    .maxResults(MAX_RESULTS_PER_PAGE)
+                    .nextToken(nextToken)
+                    .build();
+
+            final long start = ticker.getAsLong();
+            try {
+                final var response = ssmClient.getParametersByPath(request);
+                final long now = ticker.getAsLong();
+                loads.increment();
+                loadNanos.add(now - start);
+
+                final var fetchedAt = Instant.now();
+                response.parameters().forEach(p -> entries.put(p.name(), newEntry(p.value(), now, fetchedAt)));
+                count += response.parameters().size();
+                nextToken = response.nextToken();
+            } catch (RuntimeException e) {
+                loadFailures.increment();
+                loadNanos.add(ticker.getAsLong() - start);
+                throw e;
+            }
+        } while (nextToken != null && !nextToken.isEmpty());
+        return count;
+    }
+
+    /**
+     * Fetches all parameters under the path in the background and caches them. Current values are returned until
+     * then.
+     *
+     * @param path      path prefix, e.g. "/qa/service"
+     * @param recursive whether to include parameters of nested paths
+     * @return number of cached parameters, completed exceptionally if a page cannot be fetched
+     */
+    /* default */ CompletableFuture<Integer> preloadInBackground(final String path, final boolean recursive) {
+        // The client is resolved on the calling thread, like for the other reads
+        final var ssmClient = client.get();
+        final var preload = CompletableFuture.supplyAsync(() -> preload(ssmClient, path, recursive), SSM_EXECUTOR);
+        preloads.add(preload);
+        preload.whenComplete((count, error) -> preloads.remove(preload));
+        return preload;
+    }
+
+    /**
+     * Puts the value as if it was just fetched.
+     *
+     * @param name  parameter name
+     * @param value parameter value
+     */
+    /* default */ void put(final String name, final String value) {
+        put(name, new SsmValue(value, Instant.now()));
+    }
+
+    /**
+     * Puts the value as if it was just fetched, but keeps the time it was actually fetched from SSM.
+     *
+     * @param name  parameter name
+     * @param value parameter value with its fetch time
+     */
+    /* default */ void put(final String name, final SsmValue value) {
+        entries.put(name, newEntry(value.value(), ticker.getAsLong(), value.fetchedAt()));
+    }
+
+    /**
+     * Returns values that are not expired, with the time they were fetched from SSM.
+     *
+     * @return values by name
+     */
+    /* default */ Map<String, SsmValue> values() {
+        final long now = ticker.getAsLong();
+        final Map<String, SsmValue> values = new HashMap<>();
+        entries.forEach((name, entry) -> {
+            if (entry.value() != null && !entry.isExpired(now)) {
+                values.put(name, new SsmValue(entry.value(), entry.fetchedAt()));
+            }
+        });
+        return values;
+    }
+
+    /**
+     * Removes all values.
+     */
+    /* default */ void clear() {
+        entries.clear();
+    }
+
+    /* default */ void setTtl(final Duration ttl) {
+        Validate.isTrue(ttl.isPositive(), "TTL must be positive: %s", ttl);
+        this.ttl = ttl;
+    }
+
+    /* default */ void setNegativeTtl(final Duration negativeTtl) {
+        Validate.isTrue(negativeTtl.isPositive(), "Negative TTL must be positive: %s", negativeTtl);
+        this.negativeTtl = negativeTtl;
+    }
+
+    /**
+     * Returns counters since the JVM start.
+     *
+     * @return cache statistics
+     */
+    /* default */ SsmCacheStats stats() {
+        return new SsmCacheStats(hits.sum(), misses.sum(), loads.sum(), loadFailures.sum(),
+                Duration.ofNanos(loadNanos.sum()));
+    }
+
+    /**
+     * Fetches new values in the background, unless they are already being fetched. Current values are returned until
+     * then.
+     *
+     * @param names parameter names
+     */
+    /* default */ void refresh(final Collection<String> names) {
+        final var owned = names.stream()
+                .filter(name -> inFlight.putIfAbsent(name, new CompletableFuture<>()) == null)
+                .toList();
+        if (!owned.isEmpty()) {
+            try {
+                // The client is resolved on the reading thread, like for the other reads
+                final var ssmClient = client.get();
+                SSM_EXECUTOR.execute(() -> Lists.partition(owned, MAX_NAMES_PER_CALL)
+                        .forEach(chunk -> fetchChunk(ssmClient, chunk)));
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to refresh SSM parameters {}: {}", owned, e.toString());
+                postponeRefresh(owned);
+                owned.forEach(name -> complete(name, null, e));
+            }
+        }
+    }
+
+    /**
+     * Waits for the reads in progress, including background refreshes and preloads, so their values are not missed.
+     * Failed reads count as finished.
+     *
+     * @param timeout max time to wait
+     * @return whether all reads finished in time
+     */
+    /* default */ boolean awaitInFlight(final Duration timeout) {
+        final var reads = Stream.concat(inFlight.values().stream(), preloads.stream())
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(reads)
+                .orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS)
+                .handle((ignored, error) -> !(error instanceof TimeoutException))
+                .join();
+    }
+
+    /**
+     * Fetches parameters in chunks: the first chunk on the caller thread, the others in parallel.
+     */
+    private void fetch(final List<String> names) {
+        if (!names.isEmpty()) {
+            try {
+                final var ssmClient = client.get();
+                final var chunks = Lists.partition(names, MAX_NAMES_PER_CALL);
+                chunks.stream()
+                        .skip(1)
+                        .forEach(chunk -> SSM_EXECUTOR.execute(() -> fetchChunk(ssmClient, chunk)));
+                fetchChunk(ssmClient, chunks.getFirst());
+            } catch (RuntimeException e) {
+                names.forEach(name -> complete(name, null, e));
+            }
+        }
+    }
+
+    private void fetchChunk(final SsmClient ssmClient, final List<String> names) {
+        final long start = ticker.getAsLong();
+        try {
+            final var request = GetParametersRequest.builder()
+                    .names(names)
+                    .withDecryption(true)
+                    .build();
+
+            final var response = ssmClient.getParameters(request);
+            final long now = ticker.getAsLong();
+            final var fetchedAt = Instant.now();
+            loads.increment();
+            loadNanos.add(now - start);
+
+            final Map<String, String> values = new HashMap<>();
+            response.parameters().forEach(p -> requestedNames(p).forEach(name -> values.put(name, p.value())));
+            // Cache before completing, so a new read finds the value either in the cache or in flight
+            names.forEach(name -> entries.put(name, newEntry(values.get(name), now, fetchedAt)));
+            names.forEach(name -> complete(name, values.get(name), null));
+        } catch (RuntimeException e) {
+            loadFailures.increment();
+            loadNanos.add(ticker.getAsLong() - start);
+            LOGGER.warn("Failed to fetch SSM parameters {}: {}", names, e.toString());
+            postponeRefresh(names);
+            names.forEach(name -> complete(name, null, e));
+        }
+    }
+
+    /**
+     * Postpones the next background refresh of cached values after a failed one. Values that are not cached or are
+     * expired are fetched again by the next read anyway.
+     */
+    private void postponeRefresh(final List<String> names) {
+        final long now = ticker.getAsLong();
+        final long retryAt = now + ttl.toNanos() / REFRESH_RETRY_DIVISOR;
+        names.forEach(name -> entries.computeIfPresent(name, (key, entry) -> entry.isExpired(now)
+                ? entry
+                : new Entry(entry.value(), retryAt, entry.expiresAt(), entry.fetchedAt())));
+    }
+
+    /**
+     * Returns the names the parameter can be requested by: its name or ARN, with the version or label selector if the
+     * parameter was requested with one, e.g. "/qa/db/password:3".
+     */
+    private static List<String> requestedNames(final Parameter parameter) {
+        final var selector = parameter.selector() == null ? "" : parameter.selector();
+        return Stream.of(parameter.name(), parameter.arn())
+                .filter(Objects::nonNull)
+                .map(name -> name + selector)
+                .toList();
+    }
+
+    /**
+     * Completes in-flight read of the parameter with the value, null if not found, or with the failure.
+     */
+    private void complete(final String name, final String value, final Throwable failure) {
+        final var future = inFlight.remove(name);
+        if (future != null && failure == null) {
+            future.complete(value);
+        } else if (future != null) {
+            future.completeExceptionally(failure);
+        }
+    }
+
+    private Entry newEntry(final String value, final long now, final Instant fetchedAt) {
+        final long lifetime = (value == null ? negativeTtl : ttl).toNanos();
+        return new Entry(value, now + lifetime - lifetime / REFRESH_WINDOW_DIVISOR, now + lifetime, fetchedAt);
+    }
+
+    /**
+     * Cached value.
+     *
+     * @param value     parameter value, null if the parameter is not found
+     * @param refreshAt ticker time after which the value is refreshed in the background, later after a failed refresh
+     * @param expiresAt ticker time after which the value is fetched again before it is returned
+     * @param fetchedAt time the value was fetched from SSM, earlier than the entry for values of a snapshot
+     */
+    private record Entry(String value, long refreshAt, long expiresAt, Instant fetchedAt) {
+
+        private boolean isStale(final long now) {
+            return value != null && now - refreshAt >= 0;
+        }
+
+        private boolean isExpired(final long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package config;
+
+import encoding.Base64Utils;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encrypted file with resolved SSM parameters, shared by runs on the same machine.
+ * <p>
+ * Parameters are stored as JSON together with the time every value was fetched from SSM, encrypted with AES-GCM and
+ * Base64-encoded. The AES key is the SHA-256 hash of the secret from the {@value #KEY_VARIABLE} environment variable.
+ * Values fetched longer than the TTL ago are ignored, also when the snapshot is written again by a run that could
+ * not refresh them. The snapshot is enabled only if the variable is set.
+ */
+final class SsmSnapshot {
+
+    /**
+     * Environment variable with the secret the snapshot is encrypted with.
+     */
+    /* default */ static final String KEY_VARIABLE = "SSM_SNAPSHOT_KEY";
+
+    /**
+     * System property with the snapshot file, {@value #DEFAULT_FILE} by default.
+     */
+    /* default */ static final String FILE_PROPERTY = "ssm.snapshot.file";
+
+    /**
+     * System property with the max age of snapshot values in ISO-8601 format, e.g. {@code PT30M}. One hour by default.
+     */
+    /* default */ static final String TTL_PROPERTY = "ssm.snapshot.ttl";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SsmSnapshot.class);
+    private static final String DEFAULT_FILE = "build/ssm-snapshot.enc";
+    private static final Duration DEFAULT_TTL = Duration.ofHours(1);
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+    private static final int MIN_LENGTH = IV_LENGTH + TAG_LENGTH_BITS / Byte.SIZE;
+    private static final String PARAMETERS = "parameters";
+    private static final String VALUE = "value";
+    private static final String FETCHED_AT = "fetchedAt";
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Path file;
+    private final SecretKey key;
+    private final Duration ttl;
+
+    /**
+     * Creates a snapshot.
+     *
+     * @param file   snapshot file
+     * @param secret secret to derive the encryption key from
+     * @param ttl    max age of a value that can be read
+     */
+    /* default */ SsmSnapshot(final Path file, final String secret, final Duration ttl) {
+        this.file = file;
+        this.key = deriveKey(secret);
+        this.ttl = ttl;
+    }
+
+    /**
+     * Creates a snapshot configured by the environment.
+     *
+     * @return snapshot, or null if {@value #KEY_VARIABLE} is not set
+     */
+    /* default */ static SsmSnapshot fromEnvironment() {
+        final var secret = System.getenv(KEY_VARIABLE);
+        SsmSnapshot snapshot = null;
+        if (secret != null && !secret.isBlank()) {
+            snapshot = new SsmSnapshot(Path.of(System.getProperty(FILE_PROPERTY, DEFAULT_FILE)), secret, parseTtl());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Parses the TTL of {@value #TTL_PROPERTY}, a malformed or non-positive one is replaced by the default.
+     */
+    private static Duration parseTtl() {
+        final var property = System.getProperty(TTL_PROPERTY);
+        var ttl = DEFAULT_TTL;
+        if (property != null) {
+            try {
+                ttl = Duration.parse(property.trim());
+            } catch (DateTimeParseException e) {
+                LOGGER.warn("Ignoring {}={}: {}", TTL_PROPERTY, property, e.getMessage());
+            }
+        }
+        if (!ttl.isPositive()) {
+            LOGGER.warn("Ignoring {}={}: TTL must be positive", TTL_PROPERTY, property);
+            ttl = DEFAULT_TTL;
+        }
+        return ttl;
+    }
+
+    /* default */ Path getFile() {
+        return file;
+    }
+
+    /**
+     * Reads parameters.
+     *
+     * @return parameters by name, empty if there is no snapshot, without values fetched longer than the TTL ago
+     * @throws IOException              if the file cannot be read or is not Base64-encoded
+     * @throws GeneralSecurityException if the snapshot is encrypted with another key, is modified or truncated
+     */
+    /* default */ Map<String, SsmValue> read() throws IOException, GeneralSecurityException {
+        final Map<String, SsmValue> parameters = new HashMap<>();
+        if (Files.exists(file)) {
+            final var bytes = decode(Files.readString(file, StandardCharsets.US_ASCII).trim());
+            if (bytes.length < MIN_LENGTH) {
+                throw new GeneralSecurityException("SSM snapshot is truncated, " + bytes.length + " bytes");
+            }
+            final var cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, bytes, 0, IV_LENGTH));
+            final var json = new JSONObject(new String(
+                    cipher.doFinal(bytes, IV_LENGTH, bytes.length - IV_LENGTH), StandardCharsets.UTF_8));
+
+            final var oldest = Instant.now().minus(ttl);
+            final var values = json.getJSONObject(PARAMETERS);
+            for (final var name : values.keySet()) {
+                final var parameter = values.getJSONObject(name);
+                final var fetchedAt = Instant.ofEpochMilli(parameter.getLong(FETCHED_AT));
+                if (fetchedAt.isAfter(oldest)) {
+                    parameters.put(name, new SsmValue(parameter.getString(VALUE), fetchedAt));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    private static byte[] decode(final String text) throws IOException {
+        try {
+            return Base64Utils.decode(text);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("SSM snapshot is not Base64-encoded", e);
+        }
+    }
+
+    /**
+     * Replaces the snapshot with the parameters. Concurrent runs may write it at the same time, the file is replaced
+     * atomically, so a reader gets one of the complete snapshots.
+     *
+     * @param parameters parameters by name, with the time they were fetched from SSM
+     * @throws IOException              if the file cannot be written
+     * @throws GeneralSecurityException if encryption fails
+     */
+    /* default */ void write(final Map<String, SsmValue> parameters) throws IOException, GeneralSecurityException {
+        final var values = new JSONObject();
+        parameters.forEach((name, parameter) -> values.put(name, new JSONObject()
+                .put(VALUE, parameter.value())
+                .put(FETCHED_AT, parameter.fetchedAt().toEpochMilli())));
+        final var json = new JSONObject().put(PARAMETERS, values);
+
+        final var iv = new byte[IV_LENGTH];
+        RANDOM.nextBytes(iv);
+        final var cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+        final var encrypted = cipher.doFinal(json.toString().getBytes(StandardCharsets.UTF_8));
+
+        final var bytes = new byte[IV_LENGTH + encrypted.length];
+        System.arraycopy(iv, 0, bytes, 0, IV_LENGTH);
+        System.arraycopy(encrypted, 0, bytes, IV_LENGTH, encrypted.length);
+
+        final var directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        final var temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(temp, Base64Utils.encode(bytes), StandardCharsets.US_ASCII);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Derives the AES key from the secret of the environment, no key is stored in the code.
+     */
+    @SuppressWarnings("PMD.HardCodedCryptoKey")
+    private static SecretKey deriveKey(final String secret) {
+        try {
+            final var hash = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+            return new SecretKeySpec(hash, "AES");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package config;
+
+import java.time.Instant;
+
+/**
+ * SSM parameter value with the time it was fetched from SSM.
+ *
+ * @param value     parameter value
+ * @param fetchedAt time of the SSM call that returned the value
+ */
+record SsmValue(String value, Instant fetchedAt) {
+}
@@ -0,0 +1,319 @@
+package controllers;
+
+import org.apache.commons.lang3.Validate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Waits for several conditions at once, e.g. for N created resources to reach a state.
+ * <p>
+ * All entries are polled in rounds by one shared scheduler: every round calls the suppliers of the pending entries
+ * concurrently, removes the entries whose condition is met and idles before the next round. The wait finishes when
+ * no entries are left or fails with a combined report of all pending entries when the time is exceeded.
+ * Supplier calls still running at the deadline are interrupted.
+ *
+ * <pre>{@code
+ * Map<Object, Response> ready = BatchWaiter.<Object, Response>newBuilder()
+ *         .setTimeout(Duration.ofMinutes(2))
+ *         .setResultToString(Response::asString)
+ *         .add(first.getId(), first::get, r -> r.jsonPath().getBoolean("ready"))
+ *         .add(second.getId(), second::get, r -> r.jsonPath().getBoolean("ready"))
+ *         .build()
+ *         .waitAll();
+ * }</pre>
+ *
+ * @param <K> the type of the entry key.
+ * @param <T> the type of the object being checked.
+ */
+public final class BatchWaiter<K, T> {
+
+    /**
+     * Entries to wait for, in insertion order.
+     */
+    private final Map<K, Entry<T>> entries = new LinkedHashMap<>();
+
+    /**
+     * Time to be spent on waiting of all conditions.
+     */
+    private long waitingTimeMillis;
+
+    /**
+     * Function execution result to be shown for pending entries if time is exceeded.
+     */
+    private Function<T, String> resultToString;
+
+    /**
+     * Delay strategy between rounds. 1 sec fixed delay by default.
+     */
+    private PollSchedule pollSchedule = PollSchedule.fixed(Duration.ofSeconds(1));
+
+    /**
+     * Runs supplier calls. Shared virtual-thread executor if not set.
+     */
+    private Executor executor;
+
+    private BatchWaiter() {
+        // Disabled
+    }
+
+    /**
+     * Creates a new BatchWaiter builder.
+     *
+     * @param <K> the type of the entry key.
+     * @param <T> the type of the object being waited for.
+     * @return a new Builder instance.
+     */
+    public static <K, T> BatchWaiter<K, T>.Builder newBuilder() {
+        return new BatchWaiter<K, T>().new Builder();
+    }
+
+    private Executor getExecutor() {
+        return executor != null ? executor : WaiterExecutors.SUPPLIER_EXECUTOR;
+    }
+
+    /**
+     * Waits until the conditions of all entries are met.
+     *
+     * @return supplier results by entry key, in insertion order.
+     * @throws TimeExceededRuntimeException if any condition is not satisfied within the wait time.
+     */
+    public Map<K, T> waitAll() {
+        try {
+            return waitAllAsync().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Waits until the conditions of all entries are met without blocking the calling thread.
+     *
+     * @return future completed with supplier results by entry key, in insertion order, or completed exceptionally
+     * with {@link TimeExceededRuntimeException} if any condition is not satisfied within the wait time.
+     */
+    public CompletableFuture<Map<K, T>> waitAllAsync() {
+        if (resultToString == null) {
+            throw new IllegalStateException("resultToString must not be null");
+        }
+
+        final var result = new CompletableFuture<Map<K, T>>();
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitingTimeMillis);
+        new Round(deadline, result).poll();
+
+        return result;
+    }
+
+    /**
+     * Single entry of the batch.
+     *
+     * @param supplier          function to execute.
+     * @param expectedCondition the condition to be satisfied.
+     * @param <T>               the type of the object being checked.
+     */
+    private record Entry<T>(Supplier<T> supplier, Predicate<T> expectedCondition) {
+    }
+
+    /**
+     * Polling state of a single entry within one batch wait.
+     */
+    private final class Check {
+
+        private final K key;
+        private final Entry<T> entry;
+        private volatile T lastResult;
+
+        private Check(final K key, final Entry<T> entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+
+        private void run() {
+            lastResult = entry.supplier().get();
+        }
+
+        private boolean isSatisfied() {
+            return entry.expectedCondition().test(lastResult);
+        }
+    }
+
+    /**
+     * Polling state of a batch wait. Rounds run one after another, so an entry is never polled concurrently
+     * with itself. Pending entries are read by the deadline timer while a round may be updating them.
+     */
+    private final class Round {
+
+        private final long deadline;
+        private final CompletableFuture<Map<K, T>> result;
+        private final List<Check> checks = new ArrayList<>();
+        private final List<Check> pending;
+        private int attempt = 1;
+        private Duration delay = Duration.ZERO;
+
+        private Round(final long deadline, final CompletableFuture<Map<K, T>> result) {
+            this.deadline = deadline;
+            this.result = result;
+            entries.forEach((key, entry) -> checks.add(new Check(key, entry)));
+            this.pending = new CopyOnWriteArrayList<>(checks);
+        }
+
+        private void poll() {
+            if (result.isDone()) {
+                return;
+            }
+
+            final var tasks = new ArrayList<FutureTask<Void>>();
+            final var calls = pending.stream()
+                    .map(check -> call(check, tasks))
+                    .toArray(CompletableFuture[]::new);
+            final var timer = WaiterExecutors.SCHEDULER.schedule(() -> expire(tasks),
+                    Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+
+            CompletableFuture.allOf(calls)
+                    .whenComplete((ignored, error) -> timer.cancel(false))
+                    .thenRun(this::afterRound)
+                    .exceptionally(error -> {
+                        result.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+                        return null;
+                    });
+        }
+
+        /**
+         * Runs the supplier of the entry as a cancellable task.
+         *
+         * @param check entry to poll.
+         * @param tasks running tasks of the round, to be interrupted at the deadline.
+         * @return future completed when the supplier call is finished.
+         */
+        private CompletableFuture<Void> call(final Check check, final List<FutureTask<Void>> tasks) {
+            final var finished = new CompletableFuture<Void>();
+            final var task = new FutureTask<Void>(check::run, null) {
+                @Override
+                protected void set(final Void value) {
+                    super.set(value);
+                    finished.complete(value);
+                }
+
+                @Override
+                protected void setException(final Throwable error) {
+                    super.setException(error);
+                    finished.completeExceptionally(error);
+                }
+            };
+            tasks.add(task);
+            getExecutor().execute(task);
+            return finished;
+        }
+
+        /**
+         * Fails the wait and interrupts the supplier calls that are still running at the deadline.
+         *
+         * @param tasks tasks of the current round.
+         */
+        private void expire(final List<FutureTask<Void>> tasks) {
+            if (result.completeExceptionally(timeExceeded())) {
+                tasks.forEach(task -> task.cancel(true));
+            }
+        }
+
+        private void afterRound() {
+            final long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                result.completeExceptionally(timeExceeded());
+            } else {
+                pending.removeIf(Check::isSatisfied);
+                if (pending.isEmpty()) {
+                    final var results = new LinkedHashMap<K, T>();
+                    checks.forEach(check -> results.put(check.key, check.lastResult));
+                    result.complete(Collections.unmodifiableMap(results));
+                } else {
+                    // Idle, but never past the deadline
+                    delay = pollSchedule.nextDelay(attempt++, delay);
+                    final long idleNanos = Math.min(TimeUnit.MILLISECONDS.toNanos(delay.toMillis()), remainingNanos);
+                    WaiterExecutors.SCHEDULER.schedule(this::poll, idleNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+
+        private TimeExceededRuntimeException timeExceeded() {
+            final var pendingResults = pending.stream()
+                    .map(check -> check.key + ": " + resultToString.apply(check.lastResult))
+                    .collect(Collectors.joining("\n"));
+
+            return new TimeExceededRuntimeException(
+                    "Expected condition not met for " + pending.size() + " of " + checks.size() + " entries. "
+                            + "Max waiting time exceeded\n\n"
+                            + "Results:\n" + pendingResults);
+        }
+    }
+
+    /**
+     * Builder class for {@link BatchWaiter}.
+     */
+    @SuppressWarnings("PMD.LinguisticNaming")
+    public final class Builder {
+
+        private Builder() {
+            // Disabled
+        }
+
+        public Builder setTimeout(final Duration duration) {
+            BatchWaiter.this.waitingTimeMillis = duration.toMillis();
+            return this;
+        }
+
+        public Builder setResultToString(final Function<T, String> resultToString) {
+            BatchWaiter.this.resultToString = resultToString;
+            return this;
+        }
+
+        public Builder setIdleDuration(final Duration duration) {
+            return setPollSchedule(PollSchedule.fixed(duration));
+        }
+
+        public Builder setPollSchedule(final PollSchedule pollSchedule) {
+            BatchWaiter.this.pollSchedule = pollSchedule;
+            return this;
+        }
+
+        public Builder setExecutor(final Executor executor) {
+            BatchWaiter.this.executor = executor;
+            return this;
+        }
+
+        public Builder add(final K key, final Supplier<T> supplier, final Predicate<T> expectedCondition) {
+            if (supplier == null || expectedCondition == null) {
+                throw new IllegalStateException("Supplier and expectedCondition must not be null");
+            }
+            Validate.isTrue(!BatchWaiter.this.entries.containsKey(key), "Duplicate key: %s", key);
+            BatchWaiter.this.entries.put(key, new Entry<>(supplier, expectedCondition));
+            return this;
+        }
+
+        public Builder addAll(final Map<K, Supplier<T>> suppliers, final Predicate<T> expectedCondition) {
+            suppliers.forEach((key, supplier) -> add(key, supplier, expectedCondition));
+            return this;
+        }
+
+        public BatchWaiter<K, T> build() {
+            return BatchWaiter.this;
+        }
+    }
+}
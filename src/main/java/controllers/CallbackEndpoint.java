@@ -0,0 +1,108 @@
+package controllers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * In-process HTTP endpoint that feeds a {@link WaiterSignal} from webhook calls of the system under test.
+ * <p>
+ * The endpoint listens on a free loopback port. Every request to {@link #getUri()} either wakes the waiter up or,
+ * if a body parser is given, delivers the parsed request body as the value to be checked.
+ */
+public final class CallbackEndpoint implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("common-test-utils.waiter");
+    private static final String PATH = "/callback";
+
+    private final HttpServer server;
+
+    private CallbackEndpoint(final HttpServer server) {
+        this.server = server;
+    }
+
+    /**
+     * Starts an endpoint that wakes the waiter up on every request.
+     *
+     * @param signal signal to be fed
+     * @return started endpoint
+     */
+    public static CallbackEndpoint start(final WaiterSignal<?> signal) {
+        return start(exchange -> signal.wakeUp());
+    }
+
+    /**
+     * Starts an endpoint that delivers the parsed body of every request to the waiter.
+     *
+     * @param signal signal to be fed
+     * @param parser converts request body to the value being waited for
+     * @param <T>    value type
+     * @return started endpoint
+     */
+    public static <T> CallbackEndpoint start(final WaiterSignal<T> signal, final Function<String, T> parser) {
+        return start(exchange -> {
+            try (var body = exchange.getRequestBody()) {
+                signal.offer(parser.apply(new String(body.readAllBytes(), StandardCharsets.UTF_8)));
+            }
+        });
+    }
+
+    private static CallbackEndpoint start(final Handler handler) {
+        try {
+            final var server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.createContext(PATH, exchange -> handle(exchange, handler));
+            server.start();
+            return new CallbackEndpoint(server);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start callback endpoint", e);
+        }
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private static void handle(final HttpExchange exchange, final Handler handler) throws IOException {
+        int status = 204;
+        try {
+            handler.handle(exchange);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Callback request could not be handled: {}", e.toString());
+            status = 400;
+        }
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    /**
+     * Returns URL to be called by the system under test.
+     *
+     * @return callback URL
+     */
+    public URI getUri() {
+        final var address = server.getAddress();
+        return URI.create("http://" + address.getHostString() + ":" + address.getPort() + PATH);
+    }
+
+    /**
+     * Stops the endpoint.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    /**
+     * Callback request handler.
+     */
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+}
@@ -0,0 +1,113 @@
+package controllers;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Limits number of asynchronous operations running at the same time without blocking the caller.
+ * <p>
+ * Operations above the limit are queued and started, in submission order, as soon as running ones complete.
+ */
+final class ConcurrencyLimiter {
+
+    private final int maxConcurrency;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Queue<BooleanSupplier> pending = new ArrayDeque<>();
+    private int running;
+
+    /**
+     * Creates a limiter.
+     *
+     * @param maxConcurrency max number of operations running at the same time
+     */
+    /* default */ ConcurrencyLimiter(final int maxConcurrency) {
+        Validate.isTrue(maxConcurrency > 0, "Max concurrency must be positive: %d", maxConcurrency);
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Starts the operation now if the limit allows, otherwise once a running operation completes.
+     *
+     * @param operation starts the operation and returns its result
+     * @param <T>       result type
+     * @return result of the operation
+     */
+    /* default */ <T> CompletableFuture<T> submit(final Supplier<CompletableFuture<T>> operation) {
+        final var result = new CompletableFuture<T>();
+        final BooleanSupplier start = () -> start(operation, result);
+
+        final boolean startNow;
+        lock.lock();
+        try {
+            startNow = running < maxConcurrency;
+            if (startNow) {
+                running++;
+            } else {
+                pending.add(start);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (startNow && !start.getAsBoolean()) {
+            release();
+        }
+        return result;
+    }
+
+    /**
+     * Starts the operation. The permit is released when the operation completes, unless it has completed (or failed)
+     * already during the start: then the caller releases the permit.
+     *
+     * @return whether the operation is still running and holds the permit
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private <T> boolean start(final Supplier<CompletableFuture<T>> operation, final CompletableFuture<T> result) {
+        CompletableFuture<T> started;
+        try {
+            started = operation.get();
+        } catch (RuntimeException e) {
+            started = CompletableFuture.failedFuture(e);
+        }
+
+        final boolean holdsPermit = !started.isDone();
+        started.whenComplete((value, error) -> {
+            if (holdsPermit) {
+                release();
+            }
+            if (error == null) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(error);
+            }
+        });
+        return holdsPermit;
+    }
+
+    /**
+     * Hands the permit over to the next queued operation. Operations that complete right away pass it on in this
+     * loop, so a burst of failing requests does not grow the stack.
+     */
+    private void release() {
+        boolean released = false;
+        while (!released) {
+            final BooleanSupplier next;
+            lock.lock();
+            try {
+                next = pending.poll();
+                if (next == null) {
+                    running--;
+                }
+            } finally {
+                lock.unlock();
+            }
+            released = next == null || next.getAsBoolean();
+        }
+    }
+}
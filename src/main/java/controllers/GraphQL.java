@@ -1,31 +1,49 @@
 package controllers;
 
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
 import io.restassured.response.Response;
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
-import serializer.JsonDeserializer;
 
 import java.io.IOException;
 import java.math.BigInteger;
+import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
 
 /**
  * Controller for sending GraphQL requests.
+ * <p>
+ * Besides blocking {@code send} methods, requests can be sent with {@code sendAsync}, so a single thread can fan out
+ * many calls, e.g. during data setup. Asynchronous requests share one HTTP/2 capable client, so calls to the same
+ * host are multiplexed over a few connections, and are limited to a configurable number of requests in flight per
+ * controller instance.
  */
 public final class GraphQL extends Controller<GraphQL> {
 
+    /**
+     * Default max number of asynchronous requests in flight per controller instance.
+     */
+    public static final int DEFAULT_MAX_CONCURRENCY = 64;
     private static final HttpClient CLIENT = HttpClient.newHttpClient();
     private final String token;
     private final String apiUrl;
+    private final ConcurrencyLimiter limiter;
 
     /**
      * Creates a new GraphQL controller.
@@ -34,18 +52,30 @@ public final class GraphQL extends Controller<GraphQL> {
      * @param token  Authorization token.
      */
     public GraphQL(final String apiUrl, final String token) {
+        this(apiUrl, token, DEFAULT_MAX_CONCURRENCY);
+    }
+
+    /**
+     * Creates a new GraphQL controller.
+     *
+     * @param apiUrl         GraphQL endpoint URL.
+     * @param token          Authorization token.
+     * @param maxConcurrency max number of asynchronous requests in flight, further requests are queued.
+     */
+    public GraphQL(final String apiUrl, final String token, final int maxConcurrency) {
         this.apiUrl = apiUrl;
         this.token = token;
+        this.limiter = new ConcurrencyLimiter(maxConcurrency);
     }
 
     /**
-     * Reads a GraphQL query from the resource file.
+     * Reads a GraphQL query from the resource file. The file is read only once, see {@link GraphQLQueries}.
      *
      * @param path path to query file.
      * @return query as JSON object.
      */
     public static JSONObject getGraphQLQuery(final String path) {
-        return new JSONObject().put("query", JsonDeserializer.readStringFromFile(path));
+        return new JSONObject().put("query", GraphQLQueries.get(path).text());
     }
 
     /**
@@ -85,6 +115,170 @@ public final class GraphQL extends Controller<GraphQL> {
                 .post(apiUrl);
     }
 
+    /**
+     * Sends a query as Automatic Persisted Query: only the query hash is sent, and the full text is sent only if the
+     * server does not know the hash yet. Response must not have errors.
+     *
+     * @param query     query document, see {@link GraphQLQueries}.
+     * @param variables variables, may be null.
+     * @return response.
+     */
+    public Response sendPersisted(final GraphQLDocument query, final JSONObject variables) {
+        final var response = send(query.toPersistedRequest(variables), true);
+        if (GraphQLQueries.isPersistedQueryNotFound(response)) {
+            // Registers the query on the server, next requests send only the hash
+            return send(query.toPersistedRequest(variables).put("query", query.text()));
+        }
+        return check(response, true);
+    }
+
+    /**
+     * Sends a GraphQL request asynchronously. Response must not have errors.
+     *
+     * @param json query or mutation.
+     * @return future completed with the response, or with {@link AssertionError} if the check failed.
+     */
+    public CompletableFuture<Response> sendAsync(final JSONObject json) {
+        return sendAsync(json, token, false);
+    }
+
+    /**
+     * Sends a batch of GraphQL operations asynchronously. Response must not have errors.
+     *
+     * @param json batch of queries or mutations.
+     * @return future completed with the response, or with {@link AssertionError} if the check failed.
+     */
+    public CompletableFuture<Response> sendAsync(final JSONArray json) {
+        return sendAsync(json.toString(), token, true);
+    }
+
+    /**
+     * Sends a GraphQL request asynchronously.
+     *
+     * @param json      query or mutation.
+     * @param hasErrors whether the response is allowed to have errors.
+     * @return future completed with the response, or with {@link AssertionError} if the check failed.
+     */
+    public CompletableFuture<Response> sendAsync(final JSONObject json, final boolean hasErrors) {
+        return sendAsync(json, token, hasErrors);
+    }
+
+    /**
+     * Sends a GraphQL request asynchronously.
+     *
+     * @param json      query or mutation.
+     * @param token     auth token.
+     * @param hasErrors whether the response is allowed to have errors.
+     * @return future completed with the response, or with {@link AssertionError} if the check failed.
+     */
+    public CompletableFuture<Response> sendAsync(final JSONObject json, final String token, final boolean hasErrors) {
+        return sendAsync(json.toString(), token, !hasErrors);
+    }
+
+    private CompletableFuture<Response> sendAsync(final String body, final String token,
+                                                  final boolean checkNoErrors) {
+        final var request = newRequest(body, token);
+        return limiter.submit(() -> CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                .thenApply(response -> check(toResponse(response), checkNoErrors));
+    }
+
+    /**
+     * Sends a batch asynchronously without checking the response for errors, so that every operation of the batch
+     * can be checked separately.
+     *
+     * @param batch batch of queries or mutations.
+     * @return future completed with the response, or with {@link AssertionError} if status code is not 200.
+     */
+    CompletableFuture<Response> sendBatchAsync(final JSONArray batch) {
+        return sendAsync(batch.toString(), token, false);
+    }
+
+    /**
+     * Sends a GraphQL request and reads the response as a stream: only errors and the selected data paths are
+     * parsed, see {@link GraphQLResponseReader}. Suits large query results that are checked only partially.
+     *
+     * @param json      query or mutation.
+     * @param hasErrors whether the response is allowed to have errors.
+     * @param dataPaths dot-separated paths below {@code data} to be read, e.g. {@code "users.totalCount"}.
+     * @return errors and values of the selected paths.
+     * @throws AssertionError if status code is not 200 or errors are not allowed and the response has errors.
+     */
+    public GraphQLResult sendStreaming(final JSONObject json, final boolean hasErrors, final String... dataPaths) {
+        final var request = newRequest(json.toString(), token);
+
+        try {
+            final var response = CLIENT.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            // Closing the body early, e.g. on errors, stops the download
+            try (var body = response.body()) {
+                if (response.statusCode() != HttpURLConnection.HTTP_OK) {
+                    assertEquals(response.statusCode(), HttpURLConnection.HTTP_OK,
+                            STR."Unexpected status code! Response: \{new String(body.readAllBytes(), UTF_8)}");
+                }
+                return GraphQLResponseReader.read(body, !hasErrors, dataPaths);
+            }
+        } catch (IOException | InterruptedException e) {
+            throw new RuntimeException("Failed to send GraphQL request", e);
+        }
+    }
+
+    private HttpRequest newRequest(final String body, final String token) {
+        final var builder = HttpRequest.newBuilder()
+                .uri(URI.create(apiUrl))
+                .header("content-type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            builder.header("authorization", token);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Converts JDK HTTP response to REST Assured one, so asynchronous calls return the same type as blocking ones.
+     */
+    private static Response toResponse(final HttpResponse<String> response) {
+        final var headers = new ArrayList<Header>();
+        response.headers().map().forEach((name, values) ->
+                values.forEach(value -> headers.add(new Header(name, value))));
+
+        final var builder = new ResponseBuilder()
+                .setStatusCode(response.statusCode())
+                .setHeaders(new Headers(headers))
+                .setBody(response.body());
+        response.headers().firstValue("content-type").ifPresent(builder::setContentType);
+        return builder.build();
+    }
+
+    /**
+     * Applies the same checks as blocking requests: status code is 200 and, if required, there are no errors.
+     */
+    static Response check(final Response response, final boolean checkNoErrors) {
+        assertEquals(response.statusCode(), 200, STR."Unexpected status code! Response: \{response.asString()}");
+        if (checkNoErrors) {
+            assertEquals(hasErrors(response.asString()), false, "Response has errors!");
+        }
+        return response;
+    }
+
+    /**
+     * Returns whether a response, or any response of a batch, has errors.
+     *
+     * @throws AssertionError if the response is not a JSON.
+     */
+    private static boolean hasErrors(final String body) {
+        final var trimmed = body.strip();
+        try {
+            if (!trimmed.startsWith("[")) {
+                return new JSONObject(trimmed).has("errors");
+            }
+            final var batch = new JSONArray(trimmed);
+            return IntStream.range(0, batch.length())
+                    .mapToObj(batch::optJSONObject)
+                    .anyMatch(item -> item != null && item.has("errors"));
+        } catch (JSONException e) {
+            throw new AssertionError(STR."Response is not a JSON! Response: \{body}", e);
+        }
+    }
+
     /**
      * Sends a multipart GraphQL request.
      *
@@ -112,47 +306,50 @@ public final class GraphQL extends Controller<GraphQL> {
     }
 
     /**
-     * Builds multipart form body.
+     * Builds multipart form body. File parts are not loaded into memory: their content is streamed from disk while
+     * the request is being sent, so memory use does not depend on upload size.
      *
      * @param data     form data.
      * @param boundary boundary string.
      * @return body publisher.
      */
     private HttpRequest.BodyPublisher ofMimeMultipartData(final Map<Object, Object> data, final String boundary) {
-        // Result request body
-        final var byteArrays = new ArrayList<byte[]>();
+        // Result request body parts
+        final var publishers = new ArrayList<HttpRequest.BodyPublisher>();
+        // Text accumulated since the last file part
+        final var text = new StringBuilder();
 
         // Separator with boundary
-        final var separator = STR."--\{boundary}\r\nContent-Disposition: form-data; name="
-                .getBytes(StandardCharsets.UTF_8);
+        final var separator = STR."--\{boundary}\r\nContent-Disposition: form-data; name=";
 
         // Iterating over data parts
         for (var entry : data.entrySet()) {
             // Opening boundary
-            byteArrays.add(separator);
+            text.append(separator);
 
-            // If value is type of Path (file) append content type with file name and file binaries, otherwise simply
+            // If value is type of Path (file) append content type with file name and file content, otherwise simply
             // append key=value
             if (entry.getValue() instanceof Path path) {
                 try {
                     final var mimeType = Files.probeContentType(path);
-                    byteArrays.add(STR."\"\{entry.getKey()}\"; filename=\"\{path
-                            .getFileName()}\"\r\nContent-Type: \{mimeType}\r\n\r\n"
-                            .getBytes(StandardCharsets.UTF_8));
-                    byteArrays.add(Files.readAllBytes(path));
-                    byteArrays.add("\r\n".getBytes(StandardCharsets.UTF_8));
+                    text.append(STR."\"\{entry.getKey()}\"; filename=\"\{path
+                            .getFileName()}\"\r\nContent-Type: \{mimeType}\r\n\r\n");
+                    publishers.add(HttpRequest.BodyPublishers.ofString(text.toString()));
+                    text.setLength(0);
+                    publishers.add(HttpRequest.BodyPublishers.ofFile(path));
+                    text.append("\r\n");
                 } catch (IOException e) {
                     throw new IllegalStateException("Failed to read file: " + path, e);
                 }
             } else {
-                byteArrays.add(STR."\"\{entry.getKey()}\"\r\n\r\n\{entry.getValue()}\r\n"
-                        .getBytes(StandardCharsets.UTF_8));
+                text.append(STR."\"\{entry.getKey()}\"\r\n\r\n\{entry.getValue()}\r\n");
             }
         }
 
         // Closing boundary
-        byteArrays.add(STR."--\{boundary}--".getBytes(StandardCharsets.UTF_8));
-        // Serializing as byte array
-        return HttpRequest.BodyPublishers.ofByteArrays(byteArrays);
+        text.append(STR."--\{boundary}--");
+        publishers.add(HttpRequest.BodyPublishers.ofString(text.toString()));
+        // Concatenated publisher streams parts one after another and knows the total content length
+        return HttpRequest.BodyPublishers.concat(publishers.toArray(HttpRequest.BodyPublisher[]::new));
     }
 }
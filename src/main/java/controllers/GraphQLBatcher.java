@@ -0,0 +1,219 @@
+package controllers;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.response.Response;
+import org.apache.commons.lang3.Validate;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces separate GraphQL operations into batch requests, DataLoader-style.
+ * <p>
+ * Operations passed to {@link #send(JSONObject)} are collected until the batch window elapses or the max batch size
+ * is reached, then sent as one array POST through {@link GraphQL}. Every operation gets its own part of the batch
+ * response and is checked separately, so bulk data setup makes one round-trip instead of hundreds.
+ *
+ * <pre>{@code
+ * GraphQLBatcher batcher = GraphQLBatcher.newBuilder(graphQL)
+ *         .setWindow(Duration.ofMillis(20))
+ *         .setMaxBatchSize(50)
+ *         .build();
+ * List<CompletableFuture<Response>> users = ids.stream()
+ *         .map(id -> batcher.send(createUser(id)))
+ *         .toList();
+ * }</pre>
+ */
+public final class GraphQLBatcher {
+
+    /**
+     * Controller the batches are sent with.
+     */
+    private final GraphQL graphQL;
+
+    /**
+     * Time to collect operations after the first one of a batch. 10 ms by default.
+     */
+    private Duration window = Duration.ofMillis(10);
+
+    /**
+     * Max number of operations per batch. 100 by default.
+     */
+    private int maxBatchSize = 100;
+
+    /**
+     * Operations collected for the next batch.
+     */
+    private List<Operation> pending = new ArrayList<>();
+
+    /**
+     * Hands the pending operations over to a virtual thread to be sent once the window elapses.
+     */
+    private ScheduledFuture<?> scheduledFlush;
+
+    private GraphQLBatcher(final GraphQL graphQL) {
+        this.graphQL = graphQL;
+    }
+
+    /**
+     * Creates a new GraphQLBatcher builder.
+     *
+     * @param graphQL controller the batches are sent with.
+     * @return a new Builder instance.
+     */
+    public static GraphQLBatcher.Builder newBuilder(final GraphQL graphQL) {
+        Validate.notNull(graphQL, "GraphQL controller must not be null");
+        return new GraphQLBatcher(graphQL).new Builder();
+    }
+
+    /**
+     * Adds an operation to the next batch. Response must not have errors.
+     *
+     * @param json query or mutation.
+     * @return future completed with the response to the operation, or with {@link AssertionError} if the check
+     * failed.
+     */
+    public CompletableFuture<Response> send(final JSONObject json) {
+        return send(json, false);
+    }
+
+    /**
+     * Adds an operation to the next batch.
+     *
+     * @param json      query or mutation.
+     * @param hasErrors whether the response to the operation is allowed to have errors.
+     * @return future completed with the response to the operation, or with {@link AssertionError} if the check
+     * failed.
+     */
+    public CompletableFuture<Response> send(final JSONObject json, final boolean hasErrors) {
+        final var operation = new Operation(json, !hasErrors, new CompletableFuture<>());
+
+        List<Operation> full = null;
+        synchronized (this) {
+            pending.add(operation);
+            if (pending.size() >= maxBatchSize) {
+                full = takePending();
+            } else if (pending.size() == 1) {
+                // The shared scheduler only counts the window down, the batch is built and sent elsewhere
+                scheduledFlush = WaiterExecutors.SCHEDULER.schedule(
+                        () -> WaiterExecutors.SUPPLIER_EXECUTOR.execute(this::flush),
+                        window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        if (full != null) {
+            dispatch(full);
+        }
+        return operation.response();
+    }
+
+    /**
+     * Sends the pending operations right away instead of waiting for the window to elapse.
+     */
+    public void flush() {
+        final List<Operation> batch;
+        synchronized (this) {
+            batch = takePending();
+        }
+        dispatch(batch);
+    }
+
+    private List<Operation> takePending() {
+        final var batch = pending;
+        pending = new ArrayList<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(final List<Operation> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        final var json = new JSONArray();
+        batch.forEach(operation -> json.put(operation.json()));
+
+        graphQL.sendBatchAsync(json)
+                .thenAccept(response -> split(batch, response))
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        // Operations already completed by split are not affected
+                        final var cause = error instanceof CompletionException ? error.getCause() : error;
+                        batch.forEach(operation -> operation.response().completeExceptionally(cause));
+                    }
+                });
+    }
+
+    /**
+     * Completes every operation with its own part of the batch response.
+     */
+    private static void split(final List<Operation> batch, final Response response) {
+        final var results = new JSONArray(response.asString());
+        if (results.length() != batch.size()) {
+            final var error = new AssertionError(STR."Batch response has \{results.length()} results for \{batch
+                    .size()} operations! Response: \{response.asString()}");
+            batch.forEach(operation -> operation.response().completeExceptionally(error));
+            return;
+        }
+
+        for (var i = 0; i < batch.size(); i++) {
+            final var operation = batch.get(i);
+            final var part = new ResponseBuilder()
+                    .clone(response)
+                    .setBody(results.get(i).toString())
+                    .build();
+            try {
+                operation.response().complete(GraphQL.check(part, operation.checkNoErrors()));
+            } catch (AssertionError e) {
+                operation.response().completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Single operation waiting for the batch to be sent.
+     *
+     * @param json          query or mutation.
+     * @param checkNoErrors whether the response must not have errors.
+     * @param response      response to the operation.
+     */
+    private record Operation(JSONObject json, boolean checkNoErrors, CompletableFuture<Response> response) {
+    }
+
+    /**
+     * Builder class for {@link GraphQLBatcher}.
+     */
+    @SuppressWarnings("PMD.LinguisticNaming")
+    public final class Builder {
+
+        private Builder() {
+            // Disabled
+        }
+
+        public Builder setWindow(final Duration window) {
+            Validate.isTrue(!window.isNegative(), "Window must not be negative: %s", window);
+            GraphQLBatcher.this.window = window;
+            return this;
+        }
+
+        public Builder setMaxBatchSize(final int maxBatchSize) {
+            Validate.isTrue(maxBatchSize > 0, "Max batch size must be positive: %d", maxBatchSize);
+            GraphQLBatcher.this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        public GraphQLBatcher build() {
+            return GraphQLBatcher.this;
+        }
+    }
+}
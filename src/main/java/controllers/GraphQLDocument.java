@@ -0,0 +1,56 @@
+package controllers;
+
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Loaded GraphQL query document together with its SHA-256 hash, as used by Automatic Persisted Queries.
+ * Instances are created once per file by {@link GraphQLQueries}.
+ *
+ * @param text       query text.
+ * @param sha256Hash lowercase hex SHA-256 hash of the query text.
+ */
+public record GraphQLDocument(String text, String sha256Hash) {
+
+    /**
+     * Creates a document and computes the hash of its text.
+     *
+     * @param text query text.
+     * @return document.
+     */
+    public static GraphQLDocument of(final String text) {
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return new GraphQLDocument(text, HexFormat.of().formatHex(digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * Builds request body with the full query text.
+     *
+     * @param variables variables, may be null.
+     * @return query + variables.
+     */
+    public JSONObject toRequest(final JSONObject variables) {
+        return new JSONObject().put("query", text).putOpt("variables", variables);
+    }
+
+    /**
+     * Builds Automatic Persisted Queries request body that has only the query hash instead of the query text.
+     *
+     * @param variables variables, may be null.
+     * @return query hash + variables.
+     */
+    public JSONObject toPersistedRequest(final JSONObject variables) {
+        final var persistedQuery = new JSONObject().put("version", 1).put("sha256Hash", sha256Hash);
+        return new JSONObject()
+                .putOpt("variables", variables)
+                .put("extensions", new JSONObject().put("persistedQuery", persistedQuery));
+    }
+}
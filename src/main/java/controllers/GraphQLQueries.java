@@ -0,0 +1,179 @@
+package controllers;
+
+import io.restassured.response.Response;
+import org.json.JSONObject;
+import serializer.JsonDeserializer;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.IntStream;
+
+/**
+ * Registry of GraphQL query documents loaded from resource files.
+ * <p>
+ * Every file is read from the classpath only once per mode, and its hash is computed only once, so queries that are
+ * sent thousands of times per suite cost no further I/O. Documents can be minified: comments, insignificant
+ * whitespace and commas are removed, string values are kept as is.
+ */
+public final class GraphQLQueries {
+
+    private static final char QUOTE = '"';
+    private static final char COMMENT = '#';
+
+    private static final ConcurrentMap<Key, GraphQLDocument> DOCUMENTS = new ConcurrentHashMap<>();
+
+    private GraphQLQueries() {
+        // Utility class, no instantiation
+    }
+
+    /**
+     * Returns document of the resource file as is.
+     *
+     * @param path path to query file.
+     * @return document.
+     */
+    public static GraphQLDocument get(final String path) {
+        return get(path, false);
+    }
+
+    /**
+     * Returns document of the resource file.
+     *
+     * @param path   path to query file.
+     * @param minify whether the query text is to be minified.
+     * @return document.
+     */
+    public static GraphQLDocument get(final String path, final boolean minify) {
+        return DOCUMENTS.computeIfAbsent(new Key(path, minify), key -> {
+            final var text = JsonDeserializer.readStringFromFile(key.path());
+            return GraphQLDocument.of(key.minified() ? minify(text) : text);
+        });
+    }
+
+    /**
+     * Removes all loaded documents, so files are read again on next use.
+     */
+    public static void clear() {
+        DOCUMENTS.clear();
+    }
+
+    /**
+     * Removes comments, insignificant whitespace and commas from the query. String and block string values are
+     * copied as is.
+     *
+     * @param query query text.
+     * @return minified query text.
+     */
+    public static String minify(final String query) {
+        final var result = new StringBuilder(query.length());
+        var separated = false;
+        var i = 0;
+
+        while (i < query.length()) {
+            final char c = query.charAt(i);
+            if (c == QUOTE) {
+                i = copyString(query, i, result);
+                separated = false;
+            } else if (c == COMMENT) {
+                i = commentEnd(query, i);
+                separated = true;
+            } else if (isIgnored(c)) {
+                separated = true;
+                i++;
+            } else {
+                appendToken(result, c, separated);
+                separated = false;
+                i++;
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns whether the response tells that the server does not know the persisted query hash yet.
+     */
+    /* default */ static boolean isPersistedQueryNotFound(final Response response) {
+        final var errors = new JSONObject(response.asString()).optJSONArray("errors");
+        return errors != null && IntStream.range(0, errors.length())
+                .mapToObj(errors::optJSONObject)
+                .filter(Objects::nonNull)
+                .anyMatch(error -> "PersistedQueryNotFound".equals(error.optString("message"))
+                        || "PERSISTED_QUERY_NOT_FOUND".equals(error.optQuery("/extensions/code")));
+    }
+
+    /**
+     * Copies the string or block string starting at the index as is.
+     *
+     * @return index after the closing quote.
+     */
+    private static int copyString(final String query, final int start, final StringBuilder result) {
+        final int end = query.startsWith("\"\"\"", start) ? blockStringEnd(query, start) : stringEnd(query, start);
+        result.append(query, start, end);
+        return end;
+    }
+
+    /**
+     * Returns index of the line break ending the comment starting at the index. Comment lasts till the end of the line.
+     */
+    private static int commentEnd(final String query, final int start) {
+        var i = start;
+        while (i < query.length() && query.charAt(i) != '\n' && query.charAt(i) != '\r') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns whether the character is insignificant: whitespace, comma or byte order mark.
+     */
+    private static boolean isIgnored(final char c) {
+        return Character.isWhitespace(c) || c == ',' || c == '\uFEFF';
+    }
+
+    /**
+     * Appends a token character. Space is kept only where two names or numbers would otherwise merge.
+     */
+    private static void appendToken(final StringBuilder result, final char c, final boolean separated) {
+        if (separated && !result.isEmpty() && isNamePart(result.charAt(result.length() - 1)) && isNamePart(c)) {
+            result.append(' ');
+        }
+        result.append(c);
+    }
+
+    private static boolean isNamePart(final char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    /**
+     * Returns index after the closing quote of the string starting at the index.
+     */
+    private static int stringEnd(final String query, final int start) {
+        var i = start + 1;
+        while (i < query.length() && query.charAt(i) != '"' && query.charAt(i) != '\n') {
+            i += query.charAt(i) == '\\' ? 2 : 1;
+        }
+        return Math.min(i + 1, query.length());
+    }
+
+    /**
+     * Returns index after the closing triple quote of the block string starting at the index.
+     */
+    private static int blockStringEnd(final String query, final int start) {
+        var end = query.indexOf("\"\"\"", start + 3);
+        // Escaped triple quote does not close the block string
+        while (end > 0 && query.charAt(end - 1) == '\\') {
+            end = query.indexOf("\"\"\"", end + 3);
+        }
+        return end < 0 ? query.length() : end + 3;
+    }
+
+    /**
+     * Registry key.
+     *
+     * @param path     path to query file.
+     * @param minified whether the query text is minified.
+     */
+    private record Key(String path, boolean minified) {
+    }
+}
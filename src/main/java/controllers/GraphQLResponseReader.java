@@ -0,0 +1,197 @@
+package controllers;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONTokener;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Streaming reader of GraphQL responses.
+ * <p>
+ * The body is read token by token with {@link JSONTokener}: only {@code errors} and the selected {@code data} paths
+ * are built into JSON objects, everything else is skipped character by character without building strings or trees.
+ * If errors are not allowed and the response starts with {@code errors}, as the GraphQL spec recommends, the check
+ * fails before the data is downloaded.
+ *
+ * <pre>{@code
+ * GraphQLResult result = GraphQLResponseReader.read(response.asInputStream(), true, "users.totalCount");
+ * int total = (int) result.get("users.totalCount");
+ * }</pre>
+ */
+public final class GraphQLResponseReader {
+
+    private static final String ERRORS = "errors";
+    private static final String DATA = "data";
+    private static final char BEGIN_OBJECT = '{';
+    private static final char END_OBJECT = '}';
+    private static final char ESCAPE = '\\';
+
+    private final JSONTokener tokener;
+    private final boolean checkNoErrors;
+    private final Set<String> paths;
+    private final Set<String> parents = new HashSet<>();
+    private final Map<String, Object> data = new HashMap<>();
+    private JSONArray errors = new JSONArray();
+
+    private GraphQLResponseReader(final InputStream body, final boolean checkNoErrors, final String... dataPaths) {
+        this.tokener = new JSONTokener(new InputStreamReader(body, StandardCharsets.UTF_8));
+        this.checkNoErrors = checkNoErrors;
+        this.paths = new HashSet<>(List.of(dataPaths));
+        // Objects on the way to selected paths are entered, all other values are skipped
+        for (final var path : dataPaths) {
+            for (int dot = path.indexOf('.'); dot > 0; dot = path.indexOf('.', dot + 1)) {
+                parents.add(path.substring(0, dot));
+            }
+        }
+    }
+
+    /**
+     * Reads errors and the selected data paths of the response.
+     *
+     * @param body          response body, not closed by the reader.
+     * @param checkNoErrors whether to fail if the response has errors.
+     * @param dataPaths     dot-separated paths below {@code data}, e.g. {@code "user.orders"}.
+     * @return errors and values of the selected paths.
+     * @throws AssertionError if errors are not allowed and the response has errors.
+     * @throws JSONException  if the body is not a valid JSON object.
+     */
+    public static GraphQLResult read(final InputStream body, final boolean checkNoErrors, final String... dataPaths) {
+        return new GraphQLResponseReader(body, checkNoErrors, dataPaths).read();
+    }
+
+    private GraphQLResult read() {
+        readObject("", true);
+        checkErrors();
+        return new GraphQLResult(errors, data);
+    }
+
+    /**
+     * Reads object fields. The opening brace is expected to be next.
+     */
+    private void readObject(final String prefix, final boolean root) {
+        expect(BEGIN_OBJECT, "A JSONObject text must begin with '{'");
+        if (isNext(END_OBJECT)) {
+            tokener.next();
+        } else {
+            readFields(prefix, root);
+        }
+    }
+
+    /**
+     * Reads fields of a non-empty object. The closing brace is consumed too.
+     */
+    private void readFields(final String prefix, final boolean root) {
+        char next;
+        do {
+            expect('"', "Expected a quoted key");
+            final var key = tokener.nextString('"');
+            expect(':', "Expected a ':' after a key");
+            if (root) {
+                readRootField(key);
+            } else {
+                readDataField(prefix.isEmpty() ? key : prefix + "." + key);
+            }
+            next = tokener.nextClean();
+        } while (next == ',');
+
+        if (next != END_OBJECT) {
+            throw tokener.syntaxError("Expected a ',' or '}'");
+        }
+    }
+
+    private void readRootField(final String key) {
+        if (ERRORS.equals(key)) {
+            errors = tokener.nextValue() instanceof JSONArray array ? array : new JSONArray();
+            checkErrors();
+        } else if (DATA.equals(key) && isNext(BEGIN_OBJECT)) {
+            readObject("", false);
+        } else {
+            skipValue();
+        }
+    }
+
+    private void readDataField(final String path) {
+        if (paths.contains(path)) {
+            data.put(path, tokener.nextValue());
+        } else if (parents.contains(path) && isNext(BEGIN_OBJECT)) {
+            readObject(path, false);
+        } else {
+            skipValue();
+        }
+    }
+
+    private void checkErrors() {
+        if (checkNoErrors) {
+            assertEquals(!errors.isEmpty(), false, "Response has errors!");
+        }
+    }
+
+    private void expect(final char expected, final String message) {
+        if (tokener.nextClean() != expected) {
+            throw tokener.syntaxError(message);
+        }
+    }
+
+    private boolean isNext(final char c) {
+        final char next = tokener.nextClean();
+        tokener.back();
+        return next == c;
+    }
+
+    /**
+     * Skips the next value without building it.
+     */
+    private void skipValue() {
+        var depth = 0;
+        do {
+            final char c = tokener.nextClean();
+            switch (c) {
+                case '{', '[' -> depth++;
+                case '}', ']' -> depth--;
+                case '"', '\'' -> skipString(c);
+                case ',', ':' -> {
+                    // Separators between nested values
+                }
+                case 0 -> throw tokener.syntaxError("Unexpected end of value");
+                default -> skipLiteral();
+            }
+        } while (depth > 0);
+    }
+
+    private void skipString(final char quote) {
+        char c = tokener.next();
+        while (c != quote) {
+            if (c == 0 || c == '\n' || c == '\r') {
+                throw tokener.syntaxError("Unterminated string");
+            }
+            if (c == ESCAPE) {
+                tokener.next();
+            }
+            c = tokener.next();
+        }
+    }
+
+    /**
+     * Skips number, boolean or null. The first character is already consumed, whitespace or separator after the value
+     * is not.
+     */
+    private void skipLiteral() {
+        char c = tokener.next();
+        while (c > ' ' && ",:]}/\\\"[{;=#".indexOf(c) < 0) {
+            c = tokener.next();
+        }
+        if (c != 0) {
+            tokener.back();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package controllers;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Parts of a GraphQL response read by {@link GraphQLResponseReader}: errors and the selected {@code data} paths.
+ *
+ * @param errors errors of the response, empty if there are none.
+ * @param data   values of the selected paths found in the response, by path.
+ */
+public record GraphQLResult(JSONArray errors, Map<String, Object> data) {
+
+    /**
+     * Creates a result.
+     *
+     * @param errors errors of the response, empty if there are none.
+     * @param data   values of the selected paths found in the response, by path.
+     */
+    public GraphQLResult {
+        data = Collections.unmodifiableMap(data);
+    }
+
+    /**
+     * Returns whether the response has errors.
+     *
+     * @return true if there are errors.
+     */
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    /**
+     * Returns value of the selected path.
+     *
+     * @param path path below {@code data}, e.g. {@code "user.orders"}.
+     * @return {@link JSONObject}, {@link JSONArray}, primitive value, {@link JSONObject#NULL} for JSON null, or null
+     * if the path is missing in the response.
+     */
+    public Object get(final String path) {
+        return data.get(path);
+    }
+
+    /**
+     * Returns value of the selected path as an object.
+     *
+     * @param path path below {@code data}.
+     * @return object, or null if the path is missing or is not an object.
+     */
+    public JSONObject getJsonObject(final String path) {
+        return get(path) instanceof JSONObject json ? json : null;
+    }
+
+    /**
+     * Returns value of the selected path as an array.
+     *
+     * @param path path below {@code data}.
+     * @return array, or null if the path is missing or is not an array.
+     */
+    public JSONArray getJsonArray(final String path) {
+        return get(path) instanceof JSONArray json ? json : null;
+    }
+}
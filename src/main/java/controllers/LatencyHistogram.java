@@ -0,0 +1,142 @@
+package controllers;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in nanoseconds with log-linear buckets (HdrHistogram-style).
+ * <p>
+ * Every power of two is split into 32 linear sub-buckets, so recorded values keep ~3% precision over the whole
+ * long range while the histogram occupies a fixed ~15 KB. Recording is a few atomic increments and is safe to call
+ * from any number of threads.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = Long.SIZE - SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a value.
+     *
+     * @param nanos duration in nanoseconds, negative values are recorded as 0
+     */
+    public void record(final long nanos) {
+        final long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Returns number of recorded values.
+     *
+     * @return count
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns sum of recorded values.
+     *
+     * @return total duration
+     */
+    public Duration getTotal() {
+        return Duration.ofNanos(sum.sum());
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return max duration
+     */
+    public Duration getMax() {
+        return Duration.ofNanos(max.get());
+    }
+
+    /**
+     * Returns the value at the given percentile, with bucket precision.
+     *
+     * @param percentile percentile in range [0, 100]
+     * @return duration at percentile, {@link Duration#ZERO} if nothing was recorded
+     */
+    public Duration getPercentile(final double percentile) {
+        final long total = getCount();
+        var result = Duration.ZERO;
+        if (total > 0) {
+            result = getMax();
+            final long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length() && seen < target; i++) {
+                seen += counts.get(i);
+                if (seen >= target) {
+                    result = Duration.ofNanos(Math.min(highestValueOf(i), max.get()));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns copy of the histogram, not updated by later records.
+     *
+     * @return copy
+     */
+    /* default */ LatencyHistogram copy() {
+        return since(new LatencyHistogram());
+    }
+
+    /**
+     * Returns values recorded after the earlier copy of this histogram. The max of the result has bucket precision.
+     *
+     * @param earlier copy of this histogram
+     * @return histogram of the values recorded since
+     */
+    /* default */ LatencyHistogram since(final LatencyHistogram earlier) {
+        final var recent = new LatencyHistogram();
+        for (int i = 0; i < counts.length(); i++) {
+            final long added = counts.get(i) - earlier.counts.get(i);
+            if (added > 0) {
+                recent.counts.set(i, added);
+                recent.max.accumulate(Math.min(highestValueOf(i), max.get()));
+            }
+        }
+        recent.count.add(getCount() - earlier.getCount());
+        recent.sum.add(sum.sum() - earlier.sum.sum());
+        return recent;
+    }
+
+    /**
+     * Returns bucket index of the value: values below 32 map to themselves, bigger values map to one of 32 linear
+     * sub-buckets of their power of two.
+     */
+    private static int indexOf(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int bucket = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >>> (bucket - 1)) - SUB_BUCKETS;
+        return bucket * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the highest value that maps to the bucket index.
+     */
+    private static long highestValueOf(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int bucket = index / SUB_BUCKETS;
+        final long lowest = (long) (index % SUB_BUCKETS + SUB_BUCKETS) << (bucket - 1);
+        return lowest + (1L << (bucket - 1)) - 1;
+    }
+}
@@ -0,0 +1,158 @@
+package controllers;
+
+import org.apache.commons.lang3.Validate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Strategy that decides how long {@link Waiter} stays idle between two consecutive supplier calls.
+ * <p>
+ * Back-off schedules let the first checks fire fast while later ones slow down, which keeps the
+ * load on the system under test low when many waiters poll slow asynchronous jobs in parallel.
+ *
+ * <pre>{@code
+ * Waiter.<Response>newBuilder()
+ *         .setPollSchedule(PollSchedule.exponential(Duration.ofMillis(100), Duration.ofSeconds(5)))
+ *         ...
+ * }</pre>
+ */
+@FunctionalInterface
+public interface PollSchedule {
+
+    /**
+     * Returns the delay before the next poll.
+     *
+     * @param attempt       number of polls made so far, starts with 1
+     * @param previousDelay delay returned for the previous attempt, {@link Duration#ZERO} for the first one
+     * @return delay before the next poll
+     */
+    Duration nextDelay(int attempt, Duration previousDelay);
+
+    /**
+     * Constant delay between polls.
+     *
+     * @param delay delay between polls
+     * @return schedule
+     */
+    static PollSchedule fixed(final Duration delay) {
+        requireNotNegative(delay, "delay");
+        return (attempt, previousDelay) -> delay;
+    }
+
+    /**
+     * Exponential back-off doubling the delay on every attempt, with 20% jitter.
+     *
+     * @param initial first delay
+     * @param max     upper bound of the delay
+     * @return schedule
+     */
+    static PollSchedule exponential(final Duration initial, final Duration max) {
+        return exponential(initial, max, 2.0, 0.2);
+    }
+
+    /**
+     * Exponential back-off with jitter: {@code min(max, initial * multiplier^(attempt - 1))} reduced by a random
+     * fraction of up to {@code jitter}.
+     *
+     * @param initial    first delay
+     * @param max        upper bound of the delay
+     * @param multiplier growth factor, at least 1
+     * @param jitter     random reduction fraction in range [0, 1], 0 disables jitter
+     * @return schedule
+     */
+    static PollSchedule exponential(final Duration initial, final Duration max, final double multiplier,
+                                    final double jitter) {
+        requireNotNegative(initial, "initial");
+        Validate.isTrue(multiplier >= 1, "multiplier must be >= 1: %s", multiplier);
+        Validate.isTrue(jitter >= 0 && jitter <= 1, "jitter must be in range [0, 1]: %s", jitter);
+
+        final long initialMillis = initial.toMillis();
+        final long maxMillis = maxMillisOf(max);
+        return (attempt, previousDelay) -> {
+            final double raw = initialMillis * Math.pow(multiplier, attempt - 1);
+            final long capped = (long) Math.min(maxMillis, raw);
+            final double reduction = jitter == 0 ? 0 : ThreadLocalRandom.current().nextDouble(jitter);
+            return Duration.ofMillis((long) (capped * (1 - reduction)));
+        };
+    }
+
+    /**
+     * "Decorrelated jitter" back-off: every delay is a random value between {@code base} and three times the
+     * previous delay, capped by {@code max}. Spreads parallel waiters well while still growing quickly.
+     *
+     * @param base minimal delay
+     * @param max  upper bound of the delay
+     * @return schedule
+     */
+    static PollSchedule decorrelatedJitter(final Duration base, final Duration max) {
+        requireNotNegative(base, "base");
+
+        final long baseMillis = base.toMillis();
+        final long maxMillis = maxMillisOf(max);
+        return (attempt, previousDelay) -> {
+            final long previous = Math.max(baseMillis, previousDelay.toMillis());
+            final long upper = Math.max(baseMillis, Math.min(maxMillis, previous * 3));
+            final long next = upper == baseMillis
+                    ? baseMillis
+                    : ThreadLocalRandom.current().nextLong(baseMillis, upper + 1);
+            return Duration.ofMillis(Math.min(maxMillis, next));
+        };
+    }
+
+    /**
+     * Fibonacci back-off: {@code base * fib(attempt)} (1, 1, 2, 3, 5, 8...), capped by {@code max}.
+     * Grows slower than exponential back-off.
+     *
+     * @param base delay unit
+     * @param max  upper bound of the delay
+     * @return schedule
+     */
+    static PollSchedule fibonacci(final Duration base, final Duration max) {
+        requireNotNegative(base, "base");
+
+        final long baseMillis = base.toMillis();
+        final long maxMillis = maxMillisOf(max);
+        return (attempt, previousDelay) -> {
+            long previous = 0;
+            long current = 1;
+            for (int i = 1; i < attempt && current * baseMillis < maxMillis; i++) {
+                final long next = previous + current;
+                previous = current;
+                current = next;
+            }
+            return Duration.ofMillis(Math.min(maxMillis, current * baseMillis));
+        };
+    }
+
+    /**
+     * Linear back-off: {@code initial + step * (attempt - 1)}, capped by {@code max}.
+     *
+     * @param initial first delay
+     * @param step    delay increment per attempt
+     * @param max     upper bound of the delay
+     * @return schedule
+     */
+    static PollSchedule linear(final Duration initial, final Duration step, final Duration max) {
+        requireNotNegative(initial, "initial");
+        requireNotNegative(step, "step");
+
+        final long initialMillis = initial.toMillis();
+        final long stepMillis = step.toMillis();
+        final long maxMillis = maxMillisOf(max);
+        return (attempt, previousDelay) -> {
+            final long steps = Math.min(attempt - 1L, stepMillis == 0 ? 0 : maxMillis / stepMillis + 1);
+            return Duration.ofMillis(Math.min(maxMillis, initialMillis + stepMillis * steps));
+        };
+    }
+
+    private static long maxMillisOf(final Duration max) {
+        requireNotNegative(max, "max");
+        return max.toMillis();
+    }
+
+    private static void requireNotNegative(final Duration duration, final String name) {
+        Validate.notNull(duration, "%s must not be null", name);
+        Validate.isTrue(!duration.isNegative(), "%s must not be negative: %s", name, duration);
+    }
+}
@@ -4,7 +4,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.LockSupport;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -12,7 +19,15 @@ import java.util.function.Supplier;
 
 /**
  * Waits for a specific condition to be met for a provided object.
- * Condition is checked every `idleDuration` milliseconds, with a default of 1 second.
+ * Condition is checked every `idleDuration` milliseconds, with a default of 1 second,
+ * or according to the {@link PollSchedule} if one is set.
+ * <p>
+ * The deadline is checked between supplier calls. If the supplier may hang (e.g. a stuck HTTP call), enable
+ * {@link Builder#setInterruptibleSupplier(boolean)}: every call then runs on the executor under the remaining
+ * deadline and is interrupted once the time is exceeded.
+ * <p>
+ * If the system under test publishes completion (webhook, message queue), set a {@link WaiterSignal}: the waiter
+ * reacts to the signal immediately and keeps polling only as a fallback.
  *
  * @param <T> the type of the object being checked.
  */
@@ -45,16 +60,47 @@ public final class Waiter<T> {
      */
     private long idleDurationMillis = 1000;
 
+    /**
+     * Delay strategy between polls. Fixed `idleDuration` delay if not set.
+     */
+    private PollSchedule pollSchedule;
+
+    /**
+     * Runs asynchronous and interruptible supplier calls. Shared virtual-thread executor if not set.
+     */
+    private Executor executor;
+
+    /**
+     * Whether supplier calls run under the remaining deadline and get interrupted once it is exceeded.
+     * False by default.
+     */
+    private boolean interruptibleSupplier;
+
     /**
      * Whether print intermediate response or not. False by default.
      */
     private boolean debug;
 
+    /**
+     * Minimal interval between two debug outputs. 1 sec by default.
+     */
+    private long debugIntervalNanos = TimeUnit.SECONDS.toNanos(1);
+
     /**
      * Shown when time exceeded.
      */
     private String timeExceededMessage;
 
+    /**
+     * Name under which timing statistics are recorded in {@link WaiterMetrics}.
+     */
+    private String name = "unnamed";
+
+    /**
+     * External completion signal. Polling only if not set.
+     */
+    private WaiterSignal<T> signal;
+
     private Waiter() {
         // Disabled
     }
@@ -85,10 +131,34 @@ public final class Waiter<T> {
         return idleDurationMillis;
     }
 
+    private PollSchedule getPollSchedule() {
+        return pollSchedule != null ? pollSchedule : PollSchedule.fixed(Duration.ofMillis(getIdleDuration()));
+    }
+
+    private Executor getExecutor() {
+        return executor != null ? executor : WaiterExecutors.SUPPLIER_EXECUTOR;
+    }
+
+    private WaiterMetrics.Stats getStats() {
+        return WaiterMetrics.forName(name);
+    }
+
+    private WaiterSignal<T> getSignal() {
+        return signal;
+    }
+
+    private boolean isInterruptibleSupplier() {
+        return interruptibleSupplier;
+    }
+
     private boolean isDebug() {
         return debug;
     }
 
+    private long getDebugInterval() {
+        return debugIntervalNanos;
+    }
+
     /**
      * Waits for the specified condition to be met.
      *
@@ -112,37 +182,351 @@ public final class Waiter<T> {
      * @throws TimeExceededRuntimeException if the condition is not satisfied within the wait time.
      */
     public T waitCondition(final Predicate<T> expectedCondition, final String predicateAsString) {
-        if (supplier == null || resultToString == null || expectedCondition == null) {
-            throw new IllegalStateException("Supplier, resultToString, and expectedCondition must not be null");
-        }
+        requireConfigured(expectedCondition);
+
+        final long startNanos = System.nanoTime();
+        final long deadline = startNanos + TimeUnit.MILLISECONDS.toNanos(getWaitingTime());
+        final var schedule = getPollSchedule();
+        final var stats = getStats();
+        final var debugLog = isDebug() ? new DebugLog() : null;
 
-        final long startTime = System.currentTimeMillis();
-        final long endTime = startTime + getWaitingTime();
+        final var externalSignal = getSignal();
 
-        T response = getSupplier().get();
+        T response = externalSignal == null
+                ? callSupplier(deadline, stats, null, false, predicateAsString)
+                : externalSignal.take(() -> callSupplier(deadline, stats, null, false, predicateAsString));
+        int attempt = 1;
+        var delay = Duration.ZERO;
+
+        while (System.nanoTime() - deadline < 0) {
+            final boolean conditionMet = expectedCondition.test(response);
 
-        while (System.currentTimeMillis() < endTime) {
             // Print intermediate response
-            if (isDebug()) {
-                LOGGER.info(getResultToString().apply(response));
+            if (debugLog != null) {
+                debugLog.log(response, conditionMet);
             }
 
-            if (expectedCondition.test(response)) {
+            if (conditionMet) {
+                stats.recordConditionMet(System.nanoTime() - startNanos);
                 return response;
             }
 
-            // Idle
-            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(getIdleDuration()));
+            // Idle, but never past the deadline
+            delay = schedule.nextDelay(attempt++, delay);
+            final long idleStart = System.nanoTime();
+            final long idleNanos = Math.min(TimeUnit.MILLISECONDS.toNanos(delay.toMillis()), deadline - idleStart);
+            if (externalSignal == null) {
+                LockSupport.parkNanos(idleNanos);
+            } else {
+                externalSignal.await(idleNanos);
+            }
+            stats.recordIdle(System.nanoTime() - idleStart);
+
+            if (externalSignal == null) {
+                response = callSupplier(deadline, stats, response, true, predicateAsString);
+            } else {
+                final T previous = response;
+                response = externalSignal.take(() -> callSupplier(deadline, stats, previous, true, predicateAsString));
+            }
+        }
+
+        stats.recordTimeout();
+        throw timeExceeded(response, predicateAsString);
+    }
+
+    /**
+     * Waits for the specified condition to be met without blocking the calling thread.
+     *
+     * @param expectedCondition the condition to be satisfied.
+     * @return future completed with the object returned by the supplier once the condition is satisfied.
+     * @see #waitConditionAsync(Predicate, String)
+     */
+    public CompletableFuture<T> waitConditionAsync(final Predicate<T> expectedCondition) {
+        return waitConditionAsync(expectedCondition, null);
+    }
+
+    /**
+     * Waits for the specified condition to be met without blocking the calling thread.
+     * Idle delays are counted down by a shared scheduler and supplier calls run on virtual threads
+     * (or on the executor set via {@link Builder#setExecutor(Executor)}).
+     * Cancelling the returned future stops polling.
+     *
+     * @param expectedCondition the condition to be satisfied.
+     * @param predicateAsString the string representation of the predicate, optional.
+     * @return future completed with the object returned by the supplier once the condition is satisfied,
+     * or completed exceptionally with {@link TimeExceededRuntimeException} if the wait time is exceeded.
+     */
+    public CompletableFuture<T> waitConditionAsync(final Predicate<T> expectedCondition,
+                                                   final String predicateAsString) {
+        requireConfigured(expectedCondition);
+
+        final var result = new CompletableFuture<T>();
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(getWaitingTime());
+        new AsyncPoll(expectedCondition, predicateAsString, deadline, result).start();
+
+        return result;
+    }
+
+    private void requireConfigured(final Predicate<T> expectedCondition) {
+        if (supplier == null || resultToString == null || expectedCondition == null) {
+            throw new IllegalStateException("Supplier, resultToString, and expectedCondition must not be null");
+        }
+    }
+
+    /**
+     * Calls the supplier. If interruptible supplier is enabled, the call runs on the executor under the remaining
+     * deadline and is interrupted once the deadline is exceeded.
+     *
+     * @param deadline          deadline in {@link System#nanoTime()} terms.
+     * @param stats             statistics to record the call to.
+     * @param lastResponse      result of the previous call, reported if the deadline is exceeded inside the call.
+     * @param hasResponse       whether there was a previous call.
+     * @param predicateAsString the string representation of the predicate, optional.
+     * @return supplier result.
+     */
+    private T callSupplier(final long deadline, final WaiterMetrics.Stats stats, final T lastResponse,
+                           final boolean hasResponse, final String predicateAsString) {
+        final long callStart = System.nanoTime();
+        if (!isInterruptibleSupplier()) {
+            final T response = getSupplier().get();
+            stats.recordPoll(System.nanoTime() - callStart);
+            return response;
+        }
+
+        final var task = new FutureTask<>(getSupplier()::get);
+        getExecutor().execute(task);
+        try {
+            final T response = task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            stats.recordPoll(System.nanoTime() - callStart);
+            return response;
+        } catch (TimeoutException e) {
+            task.cancel(true);
+            stats.recordPoll(System.nanoTime() - callStart);
+            stats.recordTimeout();
+            throw supplierTimeExceeded(lastResponse, hasResponse, predicateAsString);
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for supplier", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
 
-            response = supplier.get();
+    private static RuntimeException unwrap(final ExecutionException e) {
+        if (e.getCause() instanceof Error cause) {
+            throw cause;
         }
+        return e.getCause() instanceof RuntimeException cause
+                ? cause
+                : new IllegalStateException("Supplier call failed", e.getCause());
+    }
+
+    private TimeExceededRuntimeException timeExceeded(final T response, final String predicateAsString) {
+        return timeExceeded("Expected condition not met. Max waiting time exceeded",
+                resultToString.apply(response), predicateAsString);
+    }
 
+    private TimeExceededRuntimeException timeExceeded(final String reason, final String result,
+                                                      final String predicateAsString) {
         final var predicatePart = predicateAsString == null ? "" : "Predicate: " + predicateAsString + "\n";
         final var defaultMsg = predicatePart
-                + "Expected condition not met. Max waiting time exceeded\n\n"
-                + "Result: " + resultToString.apply(response);
+                + reason + "\n\n"
+                + "Result: " + result;
+
+        return new TimeExceededRuntimeException(timeExceededMessage != null ? timeExceededMessage : defaultMsg);
+    }
+
+    private TimeExceededRuntimeException supplierTimeExceeded(final T lastResponse, final boolean hasResponse,
+                                                              final String predicateAsString) {
+        return timeExceeded("Expected condition not met. Max waiting time exceeded inside supplier call",
+                hasResponse ? resultToString.apply(lastResponse) : "<no result>", predicateAsString);
+    }
+
+    /**
+     * State of a single asynchronous wait. Every poll runs the supplier on the executor and, if the condition is
+     * not met yet, schedules the next poll on the shared scheduler.
+     */
+    private final class AsyncPoll {
+
+        private final Predicate<T> expectedCondition;
+        private final String predicateAsString;
+        private final long deadline;
+        private final CompletableFuture<T> result;
+        private final PollSchedule schedule = getPollSchedule();
+        private final WaiterMetrics.Stats stats = getStats();
+        private final long startNanos = System.nanoTime();
+        private final DebugLog debugLog = isDebug() ? new DebugLog() : null;
+        private long idleStart;
+        private int attempt = 1;
+        private Duration delay = Duration.ZERO;
+        private volatile T lastResponse;
+        private volatile boolean hasResponse;
+        private volatile ScheduledFuture<?> timer;
+        private volatile ScheduledFuture<?> nextPoll;
+
+        private AsyncPoll(final Predicate<T> expectedCondition, final String predicateAsString, final long deadline,
+                          final CompletableFuture<T> result) {
+            this.expectedCondition = expectedCondition;
+            this.predicateAsString = predicateAsString;
+            this.deadline = deadline;
+            this.result = result;
+        }
+
+        private void start() {
+            final var externalSignal = getSignal();
+            if (externalSignal != null) {
+                final Runnable listener = this::pollNow;
+                externalSignal.addListener(listener);
+                result.whenComplete((value, error) -> externalSignal.removeListener(listener));
+            }
+            poll();
+        }
+
+        /**
+         * Runs the next poll right away if it is scheduled and has not started yet.
+         */
+        private void pollNow() {
+            final var next = nextPoll;
+            if (next != null && next.cancel(false)) {
+                poll();
+            }
+        }
+
+        private void poll() {
+            if (result.isDone()) {
+                return;
+            }
+            if (idleStart != 0) {
+                stats.recordIdle(System.nanoTime() - idleStart);
+            }
+
+            try {
+                if (isInterruptibleSupplier()) {
+                    pollWithinDeadline();
+                } else {
+                    getExecutor().execute(this::check);
+                }
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * Runs the check as a cancellable task and interrupts it if it is still running at the deadline.
+         */
+        private void pollWithinDeadline() {
+            final var task = new FutureTask<Void>(this::check, null) {
+                @Override
+                protected void done() {
+                    final var current = timer;
+                    if (current != null) {
+                        current.cancel(false);
+                    }
+                }
+            };
+
+            timer = WaiterExecutors.SCHEDULER.schedule(() -> {
+                if (!task.isDone()
+                        && result.completeExceptionally(
+                        supplierTimeExceeded(lastResponse, hasResponse, predicateAsString))) {
+                    task.cancel(true);
+                    stats.recordTimeout();
+                }
+            }, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            getExecutor().execute(task);
+        }
+
+        @SuppressWarnings("PMD.AvoidCatchingGenericException")
+        private void check() {
+            try {
+                final long callStart = System.nanoTime();
+                final var externalSignal = getSignal();
+                final T response = externalSignal == null
+                        ? getSupplier().get()
+                        : externalSignal.take(getSupplier());
+                stats.recordPoll(System.nanoTime() - callStart);
+                lastResponse = response;
+                hasResponse = true;
+                final long remainingNanos = deadline - System.nanoTime();
+
+                if (remainingNanos <= 0) {
+                    if (result.completeExceptionally(timeExceeded(response, predicateAsString))) {
+                        stats.recordTimeout();
+                    }
+                } else {
+                    final boolean conditionMet = expectedCondition.test(response);
+
+                    // Print intermediate response
+                    if (debugLog != null) {
+                        debugLog.log(response, conditionMet);
+                    }
+
+                    if (conditionMet) {
+                        if (result.complete(response)) {
+                            stats.recordConditionMet(System.nanoTime() - startNanos);
+                        }
+                    } else {
+                        scheduleNextPoll(remainingNanos, externalSignal);
+                    }
+                }
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        private void scheduleNextPoll(final long remainingNanos, final WaiterSignal<T> externalSignal) {
+            // Idle, but never past the deadline
+            delay = schedule.nextDelay(attempt++, delay);
+            idleStart = System.nanoTime();
+            nextPoll = WaiterExecutors.SCHEDULER.schedule(this::poll,
+                    Math.min(TimeUnit.MILLISECONDS.toNanos(delay.toMillis()), remainingNanos), TimeUnit.NANOSECONDS);
+
+            // Signal may have arrived while the supplier was running
+            if (externalSignal != null && externalSignal.isSignalled()) {
+                pollNow();
+            }
+        }
+    }
+
+    /**
+     * Debug output of intermediate results of a single wait. The result string is built at most once per debug
+     * interval and logged only if it differs from the previously logged one, so polling a large payload at high
+     * frequency neither floods the log nor churns the heap. The final result is never dropped by the interval.
+     */
+    private final class DebugLog {
+
+        private boolean logged;
+        private long lastLogNanos;
+        private int lastHash;
+        private int skipped;
+
+        private void log(final T response, final boolean last) {
+            final long now = System.nanoTime();
+            if (last || !logged || now - lastLogNanos >= getDebugInterval()) {
+                lastLogNanos = now;
+                final var text = getResultToString().apply(response);
+                final int hash = Objects.hashCode(text);
+                if (logged && hash == lastHash) {
+                    skipped++;
+                } else {
+                    write(text, hash);
+                }
+            } else {
+                skipped++;
+            }
+        }
 
-        throw new TimeExceededRuntimeException(timeExceededMessage != null ? timeExceededMessage : defaultMsg);
+        private void write(final String text, final int hash) {
+            if (skipped == 0) {
+                LOGGER.info(text);
+            } else {
+                LOGGER.info("{}\n(previous {} polls not logged: unchanged or rate-limited)", text, skipped);
+            }
+            logged = true;
+            lastHash = hash;
+            skipped = 0;
+        }
     }
 
     /**
@@ -185,11 +569,41 @@ public final class Waiter<T> {
             return this;
         }
 
+        public Builder setPollSchedule(final PollSchedule pollSchedule) {
+            Waiter.this.pollSchedule = pollSchedule;
+            return this;
+        }
+
+        public Builder setExecutor(final Executor executor) {
+            Waiter.this.executor = executor;
+            return this;
+        }
+
+        public Builder setInterruptibleSupplier(final boolean interruptibleSupplier) {
+            Waiter.this.interruptibleSupplier = interruptibleSupplier;
+            return this;
+        }
+
+        public Builder setName(final String name) {
+            Waiter.this.name = name;
+            return this;
+        }
+
+        public Builder setSignal(final WaiterSignal<T> signal) {
+            Waiter.this.signal = signal;
+            return this;
+        }
+
         public Builder setDebug(final boolean debug) {
             Waiter.this.debug = debug;
             return this;
         }
 
+        public Builder setDebugInterval(final Duration interval) {
+            Waiter.this.debugIntervalNanos = interval.toNanos();
+            return this;
+        }
+
         public Builder setTimeExceededMessage(final String message) {
             Waiter.this.timeExceededMessage = message;
             return this;
@@ -0,0 +1,39 @@
+package controllers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * Executors shared by all asynchronous waits.
+ * <p>
+ * A single daemon scheduler thread only counts idle delays down, while supplier calls run on virtual threads,
+ * so thousands of concurrent waits cost a few carrier threads instead of one platform thread each.
+ */
+final class WaiterExecutors {
+
+    /**
+     * Schedules next polls, supplier deadlines and GraphQL batch windows. Never runs supplier calls or sends batches
+     * itself.
+     */
+    /* default */ static final ScheduledExecutorService SCHEDULER = newScheduler();
+
+    /**
+     * Runs supplier calls, one virtual thread per call.
+     */
+    /* default */ static final ExecutorService SUPPLIER_EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("common-test-utils-waiter-", 0).factory());
+
+    private WaiterExecutors() {
+        // Utility class, no instantiation
+    }
+
+    private static ScheduledExecutorService newScheduler() {
+        final var scheduler = new ScheduledThreadPoolExecutor(1,
+                Thread.ofPlatform().name("common-test-utils-waiter-scheduler").daemon().factory());
+        // Supplier deadline timers are mostly cancelled, do not keep them in the queue until they expire
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+}
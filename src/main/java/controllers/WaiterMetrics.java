@@ -0,0 +1,200 @@
+package controllers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Timing statistics of {@link Waiter} waits, grouped by waiter name (see {@link Waiter.Builder#setName(String)}).
+ * <p>
+ * Every wait records number of polls, time spent inside the supplier, time spent idle between polls, time to
+ * condition and timeouts. {@link listeners.BaseTestListener} takes a {@link #snapshot()} at suite start and logs the
+ * summary of the statistics recorded {@link #since(Map)} then at suite end, so slow asynchronous endpoints that
+ * dominate suite time are easy to spot. Statistics are JVM-wide: waits of suites running in parallel are counted
+ * together, and waiters without a name share the "unnamed" entry.
+ */
+public final class WaiterMetrics {
+
+    private static final ConcurrentMap<String, Stats> STATS = new ConcurrentHashMap<>();
+
+    private WaiterMetrics() {
+        // Utility class, no instantiation
+    }
+
+    /**
+     * Returns statistics of the waiter name, creating them on first use.
+     *
+     * @param name waiter name
+     * @return statistics
+     */
+    public static Stats forName(final String name) {
+        return STATS.computeIfAbsent(name, key -> new Stats());
+    }
+
+    /**
+     * Returns statistics of all waiters recorded so far, sorted by name.
+     *
+     * @return statistics by waiter name
+     */
+    public static Map<String, Stats> getAll() {
+        return new TreeMap<>(STATS);
+    }
+
+    /**
+     * Returns copy of the statistics of all waiters, not updated by later waits. Pass it to {@link #since(Map)} to get
+     * the statistics of a period, e.g. of a suite, without resetting the JVM-wide ones.
+     *
+     * @return statistics by waiter name
+     */
+    public static Map<String, Stats> snapshot() {
+        final Map<String, Stats> snapshot = new TreeMap<>();
+        STATS.forEach((name, stats) -> snapshot.put(name, stats.copy()));
+        return snapshot;
+    }
+
+    /**
+     * Returns statistics recorded after the snapshot, sorted by name, without waiters that did not poll since.
+     *
+     * @param snapshot statistics returned by {@link #snapshot()}
+     * @return statistics by waiter name
+     */
+    public static Map<String, Stats> since(final Map<String, Stats> snapshot) {
+        final Map<String, Stats> recent = new TreeMap<>();
+        STATS.forEach((name, stats) -> {
+            final var earlier = snapshot.get(name);
+            final var added = earlier == null ? stats.copy() : stats.since(earlier);
+            if (added.getWaits() > 0 || added.getPolls() > 0) {
+                recent.put(name, added);
+            }
+        });
+        return recent;
+    }
+
+    /**
+     * Removes all recorded statistics. They are shared by all suites of the JVM, use {@link #snapshot()} to get
+     * statistics of one of them.
+     */
+    public static void reset() {
+        STATS.clear();
+    }
+
+    /**
+     * Returns human-readable summary of all waiters, one line per waiter name.
+     *
+     * @return summary, empty string if nothing was recorded
+     */
+    public static String summary() {
+        return summary(getAll());
+    }
+
+    /**
+     * Returns human-readable summary of the statistics, e.g. of {@link #since(Map)}, one line per waiter name.
+     *
+     * @param stats statistics by waiter name
+     * @return summary, empty string if there are no statistics
+     */
+    public static String summary(final Map<String, Stats> stats) {
+        return new TreeMap<>(stats).entrySet().stream()
+                .map(entry -> "Waiter [" + entry.getKey() + "] " + entry.getValue())
+                .collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Statistics of a single waiter name.
+     */
+    public static final class Stats {
+
+        private final LongAdder waits = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder polls = new LongAdder();
+        private final LongAdder idleNanos = new LongAdder();
+        private final LatencyHistogram supplierTime;
+        private final LatencyHistogram timeToCondition;
+
+        private Stats() {
+            this(new LatencyHistogram(), new LatencyHistogram());
+        }
+
+        private Stats(final LatencyHistogram supplierTime, final LatencyHistogram timeToCondition) {
+            this.supplierTime = supplierTime;
+            this.timeToCondition = timeToCondition;
+        }
+
+        /* default */ Stats copy() {
+            return since(new Stats());
+        }
+
+        /**
+         * Returns statistics recorded after the earlier copy of these statistics.
+         */
+        /* default */ Stats since(final Stats earlier) {
+            final var recent = new Stats(supplierTime.since(earlier.supplierTime),
+                    timeToCondition.since(earlier.timeToCondition));
+            recent.waits.add(getWaits() - earlier.getWaits());
+            recent.timeouts.add(getTimeouts() - earlier.getTimeouts());
+            recent.polls.add(getPolls() - earlier.getPolls());
+            recent.idleNanos.add(idleNanos.sum() - earlier.idleNanos.sum());
+            return recent;
+        }
+
+        /* default */ void recordPoll(final long supplierNanos) {
+            polls.increment();
+            supplierTime.record(supplierNanos);
+        }
+
+        /* default */ void recordIdle(final long nanos) {
+            idleNanos.add(Math.max(0, nanos));
+        }
+
+        /* default */ void recordConditionMet(final long waitNanos) {
+            waits.increment();
+            timeToCondition.record(waitNanos);
+        }
+
+        /* default */ void recordTimeout() {
+            waits.increment();
+            timeouts.increment();
+        }
+
+        public long getWaits() {
+            return waits.sum();
+        }
+
+        public long getTimeouts() {
+            return timeouts.sum();
+        }
+
+        public long getPolls() {
+            return polls.sum();
+        }
+
+        public Duration getIdleTime() {
+            return Duration.ofNanos(idleNanos.sum());
+        }
+
+        public LatencyHistogram getSupplierTime() {
+            return supplierTime;
+        }
+
+        public LatencyHistogram getTimeToCondition() {
+            return timeToCondition;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "waits=%d timeouts=%d polls=%d | supplier total=%dms p50=%dms p99=%dms max=%dms | idle total=%dms"
+                            + " | time-to-condition p50=%dms p90=%dms p99=%dms max=%dms",
+                    getWaits(), getTimeouts(), getPolls(),
+                    supplierTime.getTotal().toMillis(), supplierTime.getPercentile(50).toMillis(),
+                    supplierTime.getPercentile(99).toMillis(), supplierTime.getMax().toMillis(),
+                    getIdleTime().toMillis(),
+                    timeToCondition.getPercentile(50).toMillis(), timeToCondition.getPercentile(90).toMillis(),
+                    timeToCondition.getPercentile(99).toMillis(), timeToCondition.getMax().toMillis());
+        }
+    }
+}
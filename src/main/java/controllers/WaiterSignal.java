@@ -0,0 +1,194 @@
+package controllers;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * External completion signal for {@link Waiter}, e.g. from a webhook or a message queue.
+ * <p>
+ * A signal either delivers a value ({@link #offer(Object)}), which is checked against the expected condition instead
+ * of calling the supplier, or just wakes the waiter up ({@link #wakeUp()}), so the supplier is called right away
+ * instead of after the idle delay. Polling keeps running as a fallback, so a lost event only delays the wait.
+ * <p>
+ * Only the latest value is kept. A signal is meant to be used by one wait at a time.
+ *
+ * <pre>{@code
+ * WaiterSignal<Response> signal = new WaiterSignal<>();
+ * try (var callback = CallbackEndpoint.start(signal)) {
+ *     startJob(callback.getUri());
+ *     Waiter.<Response>newBuilder()
+ *             .setSupplier(() -> http.get(statusUrl))
+ *             .setResultToString(Response::asString)
+ *             .setTimeout(Duration.ofMinutes(1))
+ *             .setIdleDuration(Duration.ofSeconds(10))
+ *             .setSignal(signal)
+ *             .build()
+ *             .waitCondition(r -> r.jsonPath().getBoolean("done"));
+ * }
+ * }</pre>
+ *
+ * @param <T> the type of the object being waited for.
+ */
+public final class WaiterSignal<T> {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition signalled = lock.newCondition();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private T value;
+    private boolean hasValue;
+    private boolean wakeUpPending;
+
+    /**
+     * Creates a signal that delivers the result of the completion stage. If the stage completes exceptionally,
+     * the waiter is woken up to poll the supplier.
+     *
+     * @param stage completion stage
+     * @param <T>   value type
+     * @return signal
+     */
+    public static <T> WaiterSignal<T> from(final CompletionStage<? extends T> stage) {
+        final var signal = new WaiterSignal<T>();
+        stage.whenComplete((result, error) -> {
+            if (error == null) {
+                signal.offer(result);
+            } else {
+                signal.wakeUp();
+            }
+        });
+        return signal;
+    }
+
+    /**
+     * Creates a signal that delivers every item published by the publisher. If the publisher fails, the waiter is
+     * woken up to poll the supplier.
+     *
+     * @param publisher publisher
+     * @param <T>       value type
+     * @return signal
+     */
+    public static <T> WaiterSignal<T> from(final Flow.Publisher<? extends T> publisher) {
+        final var signal = new WaiterSignal<T>();
+        publisher.subscribe(new Flow.Subscriber<T>() {
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(final T item) {
+                signal.offer(item);
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {
+                signal.wakeUp();
+            }
+
+            @Override
+            public void onComplete() {
+                // Nothing to deliver
+            }
+        });
+        return signal;
+    }
+
+    /**
+     * Delivers a value to be checked against the expected condition instead of the next supplier call.
+     *
+     * @param newValue value
+     */
+    public void offer(final T newValue) {
+        lock.lock();
+        try {
+            value = newValue;
+            hasValue = true;
+            signalled.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        listeners.forEach(Runnable::run);
+    }
+
+    /**
+     * Makes the waiter call the supplier right away instead of after the idle delay.
+     */
+    public void wakeUp() {
+        lock.lock();
+        try {
+            wakeUpPending = true;
+            signalled.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        listeners.forEach(Runnable::run);
+    }
+
+    /**
+     * Returns whether a value or a wake-up is pending.
+     */
+    /* default */ boolean isSignalled() {
+        lock.lock();
+        try {
+            return hasValue || wakeUpPending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for a value or a wake-up at most the given time.
+     *
+     * @param nanos max time to wait
+     * @return whether a value or a wake-up is pending
+     */
+    /* default */ boolean await(final long nanos) {
+        lock.lock();
+        try {
+            long remaining = nanos;
+            while (!hasValue && !wakeUpPending && remaining > 0) {
+                remaining = signalled.awaitNanos(remaining);
+            }
+            return hasValue || wakeUpPending;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return hasValue || wakeUpPending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Consumes the pending value, or the pending wake-up and calls the supplier.
+     *
+     * @param supplier supplier to be called if no value is pending
+     * @return pending value or supplier result
+     */
+    /* default */ T take(final Supplier<T> supplier) {
+        lock.lock();
+        try {
+            wakeUpPending = false;
+            if (hasValue) {
+                final T result = value;
+                value = null;
+                hasValue = false;
+                return result;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return supplier.get();
+    }
+
+    /* default */ void addListener(final Runnable listener) {
+        listeners.add(listener);
+    }
+
+    /* default */ void removeListener(final Runnable listener) {
+        listeners.remove(listener);
+    }
+}
@@ -1,23 +1,134 @@
 package listeners;
 
+import config.LoadConfigUtils;
+import controllers.WaiterMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
 import org.testng.ITestListener;
 import org.testng.ITestResult;
+import serializer.JsonDeserializer;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Custom TestNG listener for enhanced test failure logging.
  * Logs failed tests with duration and re-run command.
+ * Logs waiter timing statistics of the suite, waits for SSM reads in progress and saves the SSM snapshot at suite
+ * end. The shared SSM client is JVM-wide and stays open for suites still running, it is closed on JVM shutdown.
+ * Prewarms JSON fixtures listed in the {@value #PREWARM_PROPERTY} system property or suite parameter, and preloads
+ * SSM parameters from the snapshot and from the paths listed in {@value #SSM_PRELOAD_PROPERTY}, at suite start.
  */
-public class BaseTestListener implements ITestListener {
+public class BaseTestListener implements ITestListener, ISuiteListener {
+
+    /**
+     * Comma-separated resource paths to parse before tests start, e.g. {@code "/jsons/user.json,/schemas/"}.
+     */
+    public static final String PREWARM_PROPERTY = "fixtures.prewarm";
+
+    /**
+     * Comma-separated SSM paths to read recursively into the config cache before tests start, e.g. {@code "/qa/app"}.
+     */
+    public static final String SSM_PRELOAD_PROPERTY = "ssm.preload";
 
     private static final Logger LOG = LoggerFactory.getLogger(BaseTestListener.class);
 
+    /**
+     * Max time to wait for SSM reads in progress, e.g. background refreshes, at suite end.
+     */
+    private static final Duration SSM_READS_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * Waiter statistics at the start of the suites in progress. Statistics are JVM-wide, so they are not reset for a
+     * suite that may run next to or inside another one.
+     */
+    private final Map<ISuite, Map<String, WaiterMetrics.Stats>> waiterStatsAtStart = new ConcurrentHashMap<>();
+
+    @Override
+    public void onStart(final ISuite suite) {
+        waiterStatsAtStart.put(suite, WaiterMetrics.snapshot());
+
+        final var fixtures = getDeclaredPaths(suite, PREWARM_PROPERTY);
+        if (!fixtures.isEmpty()) {
+            try {
+                final long start = System.nanoTime();
+                final int count = JsonDeserializer.prewarmResources(fixtures);
+                LOG.info("Prewarmed {} fixtures in {}ms", count, (System.nanoTime() - start) / 1_000_000);
+            } catch (RuntimeException e) {
+                // Tests using a broken fixture fail on their own, the rest of the suite must still run
+                LOG.warn("Failed to prewarm fixtures {}", fixtures, e);
+            }
+        }
+
+        preloadSsmParameters(suite);
+    }
+
+    /**
+     * Reads the SSM snapshot and preloads the declared paths. Tests can start with the values of the snapshot, so the
+     * paths are then preloaded in the background, to pick up parameters the snapshot does not have.
+     */
+    private void preloadSsmParameters(final ISuite suite) {
+        var fromSnapshot = 0;
+        try {
+            fromSnapshot = LoadConfigUtils.loadSsmSnapshot();
+        } catch (RuntimeException e) {
+            // Parameters are read from SSM instead
+            LOG.warn("Failed to load SSM snapshot", e);
+        }
+
+        for (final var path : getDeclaredPaths(suite, SSM_PRELOAD_PROPERTY)) {
+            if (fromSnapshot == 0) {
+                try {
+                    LoadConfigUtils.preloadSsmParameters(path, true);
+                } catch (IllegalStateException e) {
+                    // Parameters that are not preloaded are read on first use
+                    LOG.warn("Failed to preload SSM parameters under '{}'", path, e);
+                }
+            } else {
+                LoadConfigUtils.preloadSsmParametersInBackground(path, true);
+            }
+        }
+    }
+
     @Override
     public void onTestFailure(final ITestResult result) {
         LOG.error(formatMessage(result));
     }
 
+    @Override
+    public void onFinish(final ISuite suite) {
+        final var atStart = waiterStatsAtStart.remove(suite);
+        final var summary = WaiterMetrics.summary(WaiterMetrics.since(atStart == null ? Map.of() : atStart));
+        if (!summary.isEmpty()) {
+            LOG.info("Waiter statistics of suite [{}]:\n{}", suite.getName(), summary);
+        }
+        // Refreshes update the values to be saved
+        if (!LoadConfigUtils.awaitSsmReads(SSM_READS_TIMEOUT)) {
+            LOG.warn("SSM reads did not finish in {}, saving the snapshot without them", SSM_READS_TIMEOUT);
+        }
+        LoadConfigUtils.saveSsmSnapshot();
+    }
+
+    /**
+     * Returns comma-separated paths from the system property, or from the suite parameter if the property is not set.
+     *
+     * @param suite    suite.
+     * @param property property and parameter name.
+     * @return paths, empty if none are declared.
+     */
+    protected List<String> getDeclaredPaths(final ISuite suite, final String property) {
+        final var declared = System.getProperty(property, suite.getParameter(property));
+        return declared == null ? List.of() : Arrays.stream(declared.split(","))
+                .map(String::trim)
+                .filter(path -> !path.isEmpty())
+                .toList();
+    }
+
     /**
      * Returns terminal command to rerun test.
      *
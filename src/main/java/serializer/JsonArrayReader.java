@@ -0,0 +1,154 @@
+package serializer;
+
+import org.json.JSONException;
+import org.json.JSONTokener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streaming iterator over elements of a top-level JSON array resource.
+ * <p>
+ * The resource is opened with {@link JsonResourceLoader#openReader(String)}, so files are memory-mapped, and
+ * elements are parsed one at a time: a fixture of any size is iterated with memory for a single element only.
+ *
+ * <pre>{@code
+ * try (JsonArrayReader users = JsonArrayReader.open("/jsons/users.json")) {
+ *     users.forEachRemaining(user -> check((JSONObject) user));
+ * }
+ * }</pre>
+ */
+public final class JsonArrayReader implements Iterator<Object>, Closeable {
+
+    private static final char BEGIN_ARRAY = '[';
+    private static final char END_ARRAY = ']';
+    private static final char SEPARATOR = ',';
+
+    private final Reader reader;
+    private final JSONTokener tokener;
+    private boolean started;
+    private boolean finished;
+    /**
+     * Whether the separator before the next element is consumed.
+     */
+    private boolean ready;
+
+    private JsonArrayReader(final Reader reader) {
+        this.reader = reader;
+        this.tokener = new JSONTokener(reader);
+    }
+
+    /**
+     * Opens the resource.
+     *
+     * @param path path to the resource with JSON array
+     * @return reader to be closed after use
+     * @throws IllegalArgumentException if the resource is not found or cannot be read
+     */
+    public static JsonArrayReader open(final String path) {
+        final Reader reader;
+        try {
+            reader = JsonResourceLoader.openReader(path);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to read file: " + path, e);
+        }
+        if (reader == null) {
+            throw new IllegalArgumentException("Can't find a file: " + path);
+        }
+        return new JsonArrayReader(reader);
+    }
+
+    /**
+     * Returns whether the array has more elements.
+     *
+     * @return true if there is a next element
+     * @throws JSONException if the resource is not a valid JSON array
+     */
+    @Override
+    public boolean hasNext() {
+        if (!finished && !ready) {
+            final char next = started ? afterElement() : start();
+            if (next == END_ARRAY) {
+                finished = true;
+            } else {
+                tokener.back();
+                ready = true;
+            }
+        }
+        return !finished;
+    }
+
+    /**
+     * Consumes the opening bracket.
+     *
+     * @return first character of the first element, or the closing bracket of an empty array
+     */
+    private char start() {
+        if (tokener.nextClean() != BEGIN_ARRAY) {
+            throw tokener.syntaxError("A JSONArray text must start with '['");
+        }
+        started = true;
+        return tokener.nextClean();
+    }
+
+    /**
+     * Consumes the separator after an element. A trailing comma is rejected.
+     *
+     * @return first character of the next element, or the closing bracket
+     */
+    private char afterElement() {
+        char next = tokener.nextClean();
+        if (next == SEPARATOR) {
+            next = tokener.nextClean();
+            if (next == END_ARRAY) {
+                throw tokener.syntaxError("Expected a value before ']'");
+            }
+        } else if (next != END_ARRAY) {
+            throw tokener.syntaxError("Expected a ',' or ']'");
+        }
+        return next;
+    }
+
+    /**
+     * Parses the next element.
+     *
+     * @return {@link org.json.JSONObject}, {@link org.json.JSONArray}, primitive value or
+     * {@link org.json.JSONObject#NULL}
+     * @throws NoSuchElementException if there are no more elements
+     */
+    @Override
+    public Object next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ready = false;
+        return tokener.nextValue();
+    }
+
+    /**
+     * Returns sequential stream of the remaining elements that closes the resource when closed.
+     *
+     * @return stream of elements
+     */
+    public Stream<Object> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false)
+                .onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
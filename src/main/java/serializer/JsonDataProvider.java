@@ -0,0 +1,131 @@
+package serializer;
+
+import com.mbi.Faker;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy source of TestNG data provider rows over a large fixture: a top-level JSON array, or NDJSON (one JSON value per
+ * line, files with {@code .ndjson} or {@code .jsonl} extension).
+ * <p>
+ * Records are read and faked one at a time when TestNG asks for the next row, so tests start immediately and only the
+ * current record is held in memory. Every row has a single parameter: the record with its fake data generated. The
+ * resource is closed once all records are read.
+ *
+ * <pre>{@code
+ * @DataProvider
+ * public Iterator<Object[]> users() {
+ *     return JsonDeserializer.getDataProvider("/jsons/users.ndjson");
+ * }
+ * }</pre>
+ */
+public final class JsonDataProvider implements Iterator<Object[]>, Closeable {
+
+    private static final String NDJSON_EXTENSION = ".ndjson";
+    private static final String JSONL_EXTENSION = ".jsonl";
+
+    private final Iterator<Object> records;
+    private final Closeable resource;
+    private final Faker faker;
+    private boolean closed;
+
+    private JsonDataProvider(final Iterator<Object> records, final Closeable resource, final Faker faker) {
+        this.records = records;
+        this.resource = resource;
+        this.faker = faker;
+    }
+
+    /**
+     * Opens the resource.
+     *
+     * @param path  path to the resource with JSON array or NDJSON
+     * @param faker faker to generate data with
+     * @return data provider rows
+     * @throws IllegalArgumentException if the resource is not found or cannot be read
+     */
+    /* default */ static JsonDataProvider open(final String path, final Faker faker) {
+        if (path.endsWith(NDJSON_EXTENSION) || path.endsWith(JSONL_EXTENSION)) {
+            return openLines(path, faker);
+        }
+        final var reader = JsonArrayReader.open(path);
+        return new JsonDataProvider(reader, reader, faker);
+    }
+
+    private static JsonDataProvider openLines(final String path, final Faker faker) {
+        final BufferedReader reader;
+        try {
+            final var source = JsonResourceLoader.openReader(path);
+            if (source == null) {
+                throw new IllegalArgumentException("Can't find a file: " + path);
+            }
+            reader = new BufferedReader(source);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to read file: " + path, e);
+        }
+        final Iterator<Object> records = reader.lines()
+                .filter(line -> !line.isBlank())
+                .map(line -> new JSONTokener(line).nextValue())
+                .iterator();
+        return new JsonDataProvider(records, reader, faker);
+    }
+
+    /**
+     * Returns whether there are more records, closing the resource after the last one.
+     *
+     * @return true if there is a next record
+     */
+    @Override
+    public boolean hasNext() {
+        final boolean hasNext = !closed && records.hasNext();
+        if (!hasNext) {
+            close();
+        }
+        return hasNext;
+    }
+
+    /**
+     * Reads the next record and generates its fake data.
+     *
+     * @return row with one parameter: {@link JSONObject}, {@link JSONArray} or primitive value
+     * @throws NoSuchElementException if there are no more records
+     */
+    @Override
+    public Object[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final var record = records.next();
+        final Object faked;
+        if (record instanceof JSONObject json) {
+            faked = faker.fakeData(json);
+        } else if (record instanceof JSONArray json) {
+            faked = faker.fakeData(json);
+        } else {
+            faked = record;
+        }
+        return new Object[]{faked};
+    }
+
+    /**
+     * Closes the resource, e.g. when not all records are read.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            try {
+                resource.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -1,22 +1,25 @@
 package serializer;
 
-import com.github.wnameless.json.flattener.JsonFlattener;
-import com.github.wnameless.json.unflattener.JsonUnflattener;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.mbi.Faker;
 import com.mbi.JsonFaker;
+import org.apache.commons.lang3.Validate;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
-import java.util.function.BiFunction;
-import java.util.function.BiPredicate;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
 
 /**
  * Read content from src/main/resources/ file and map to org.json.JSONObject/JSONArray.
@@ -24,28 +27,20 @@ import java.util.stream.Collectors;
  */
 public final class JsonDeserializer {
 
-    /**
-     * Fields separator in flattened json.
-     */
-    private static final String FIELDS_SEPARATOR = ".";
     private static final Faker FAKER = new JsonFaker();
 
     /**
-     * Checks if field is present in flattened json.
+     * Max total size of cached resources, in characters.
      */
-    private static final BiPredicate<String, Set<String>> TEST_KEY_IS_PARENT = (parentKey, children) ->
-            children.stream().anyMatch(child ->
-                    child.startsWith(parentKey + FIELDS_SEPARATOR)
-                            || child.equalsIgnoreCase(parentKey)
-                            || child.startsWith(parentKey + "["));
+    private static final long MAX_CACHED_RESOURCES_WEIGHT = 32L * 1024 * 1024;
 
     /**
-     * Returns children of parent from set.
+     * Parsed resources by path. Least recently used ones are evicted once the total size exceeds the limit.
      */
-    private static final BiFunction<Set<String>, String, List<String>> GET_CHILDREN = (fields, parent) ->
-            fields.stream()
-                    .filter(key -> key.startsWith(parent))
-                    .collect(Collectors.toList());
+    private static final Cache<String, JsonTemplate> RESOURCES = CacheBuilder.newBuilder()
+            .maximumWeight(MAX_CACHED_RESOURCES_WEIGHT)
+            .weigher((String path, JsonTemplate template) -> template.getWeight())
+            .build();
 
     /**
      * Prohibits object initialization.
@@ -54,29 +49,90 @@ public final class JsonDeserializer {
     }
 
     /**
-     * Loads a JSON object from a resource file and injects fake data where needed.
+     * Loads a JSON object from a resource file and injects fake data where needed. The file is read and parsed only
+     * once, every call returns a new copy with newly generated fake data.
      *
      * @param path Path to the file with data. No need to add "src/main/resources" every time when you pass the path -
      *             it is already implemented in the method
      * @return JSONObject with optional fake data
      */
     public static JSONObject getResource(final String path) {
-        return FAKER.fakeData(new JSONObject(readStringFromFile(path)));
+        final var template = getTemplate(path);
+        // Faker is called from here, so {$caller} stays the same as when the file was faked as a whole
+        if (template.newInstance(FAKER.fakeData(template.getPlaceholders())) instanceof JSONObject json) {
+            return json;
+        }
+        throw new JSONException("A JSONObject text must begin with '{': " + path);
     }
 
     /**
-     * Loads a JSON array from a resource file and injects fake data where needed.
+     * Loads a JSON array from a resource file and injects fake data where needed. The file is read and parsed only
+     * once, every call returns a new copy with newly generated fake data.
      *
      * @param path Path to the file with data. No need to add "src/main/resources" every time when you pass the path -
      *             it is already implemented in the method
      * @return JSONArray with optional fake data
      */
     public static JSONArray getResources(final String path) {
-        return FAKER.fakeData(new JSONArray(readStringFromFile(path)));
+        final var template = getTemplate(path);
+        if (template.newInstance(FAKER.fakeData(template.getPlaceholders())) instanceof JSONArray json) {
+            return json;
+        }
+        throw new JSONException("A JSONArray text must start with '[': " + path);
+    }
+
+    /**
+     * Generates JSON objects from a resource file, every one with its own fake data. The file is read and compiled
+     * once, and only the placeholders located at that time are faked for every object.
+     *
+     * @param path  Path to the file with data.
+     * @param count Number of objects to be generated
+     * @return JSONObjects with optional fake data
+     */
+    public static List<JSONObject> generateResources(final String path, final int count) {
+        Validate.isTrue(count >= 0, "Count must not be negative: %d", count);
+        final var template = getTemplate(path);
+        final var resources = new ArrayList<JSONObject>(count);
+        for (int i = 0; i < count; i++) {
+            // Every copy is faked by its own call, so generated values are never shared between copies
+            if (!(template.newInstance(FAKER.fakeData(template.getPlaceholders())) instanceof JSONObject json)) {
+                throw new JSONException("A JSONObject text must begin with '{': " + path);
+            }
+            resources.add(json);
+        }
+        return resources;
     }
 
     /**
-     * Get json object from json array by object key and value.
+     * Removes all parsed resources from the cache, so files are read again on next use.
+     */
+    public static void clearResourceCache() {
+        RESOURCES.invalidateAll();
+    }
+
+    /**
+     * Reads and parses resources into the cache in parallel, so first tests using them don't pay for it.
+     * A path ending with "/" stands for all JSON resources of that directory on the file system.
+     *
+     * @param paths resource or directory paths, e.g. "/jsons/user.json" or "/jsons/"
+     * @return number of parsed resources
+     * @throws IllegalArgumentException if a resource is not found or cannot be read
+     * @throws JSONException            if a resource is not a JSON object or array
+     */
+    public static int prewarmResources(final Collection<String> paths) {
+        final var resources = paths.stream()
+                .flatMap(path -> path.endsWith("/")
+                        ? JsonResourceLoader.listResources(path).stream()
+                        : Stream.of(path))
+                .distinct()
+                .toList();
+        resources.parallelStream().forEach(JsonDeserializer::getTemplate);
+        return resources.size();
+    }
+
+    /**
+     * Get json object from json array by object key and value. Scans the array, use {@link JsonIndex} for many
+     * lookups in the same array.
      *
      * @param sourceArray sourceArray
      * @param name        field name of wanted json object
@@ -85,70 +141,54 @@ public final class JsonDeserializer {
      */
     public static JSONObject findJsonInArray(final JSONArray sourceArray, final String name, final Object value) {
         for (final var element : sourceArray) {
-            if (!(element instanceof JSONObject json)) {
-                continue;
-            }
-
-            try {
-                final var fieldValue = json.get(name);
-                if (Objects.equals(fieldValue, value)) {
-                    return json;
-                }
-            } catch (JSONException ignored) {
-                // ignored
+            if (element instanceof JSONObject json && json.has(name) && Objects.equals(json.opt(name), value)) {
+                return json;
             }
         }
         return new JSONObject();
     }
 
     /**
-     * Updates values of json by passed values in map.
+     * Updates values of json by passed values in map. The json is copied once and all fields are updated in the copy.
      *
      * @param json Json object to be updated
      * @param map  Map of json field name as a key and json field value as a value
      * @return Json object
      */
     public static JSONObject updateJson(final JSONObject json, final Map<String, Object> map) {
-        var updated = new JSONObject(json.toString());
-        for (final var entry : map.entrySet()) {
-            updated = updateJson(updated, entry.getKey(), entry.getValue());
-        }
-        return new JSONObject(unflatten(updated));
+        final var updated = (JSONObject) deepCopy(json);
+        map.forEach((field, update) -> JsonUpdatePath.compile(field).update(updated, toJsonValue(update)));
+        return updated;
     }
 
     /**
-     * Updates a field in a flattened JSON object, replacing all subfields if the field is a parent.
+     * Updates a field, e.g. {@code "a.b[0].c"}, replacing all subfields if the field is a parent. Keys are
+     * case-sensitive. Nothing is changed if the field is not found. Null value removes the field.
      *
      * @param json   json to be updated
      * @param field  field to be updated
      * @param update new value of field
-     * @return updated json.
+     * @return updated json, the passed json is not changed.
      */
     public static JSONObject updateJson(final JSONObject json, final String field, final Object update) {
-        final var flat = flatten(json.toString());
-
-        if (TEST_KEY_IS_PARENT.test(field, flat.keySet())) {
-            GET_CHILDREN.apply(flat.keySet(), field).forEach(flat::remove);
-            flat.put(field, update);
-        }
-
-        return new JSONObject(unflatten(flat));
+        final var updated = (JSONObject) deepCopy(json);
+        JsonUpdatePath.compile(field).update(updated, toJsonValue(update));
+        return updated;
     }
 
     /**
-     * Updates a field in a flattened JSON array.
+     * Updates a field of an array element, e.g. {@code "[1].c"}, replacing all subfields if the field is a parent.
+     * Keys are case-sensitive. Nothing is changed if the field is not found.
      *
      * @param array  json array to be updated
      * @param field  field to be updated
      * @param update new value of field
-     * @return updated json.
+     * @return updated json, the passed json is not changed.
      */
     public static JSONArray updateJson(final JSONArray array, final String field, final Object update) {
-        final JSONObject flat = flatten(array.toString());
-        if (flat.has(field)) {
-            flat.put(field, update);
-        }
-        return new JSONArray(unflatten(flat));
+        final var updated = (JSONArray) deepCopy(array);
+        JsonUpdatePath.compile(field).update(updated, toJsonValue(update));
+        return updated;
     }
 
     /**
@@ -169,22 +209,70 @@ public final class JsonDeserializer {
     }
 
     /**
-     * Flattens a JSON string into a flat JSON object.
+     * Opens streaming iterator over elements of a top-level JSON array resource.
+     * Elements are parsed one at a time, so the whole array is never held in memory.
+     *
+     * @param path path to the resource with JSON array
+     * @return reader to be closed after use
+     */
+    public static JsonArrayReader streamResources(final String path) {
+        return JsonArrayReader.open(path);
+    }
+
+    /**
+     * Opens lazy TestNG data provider over a JSON array or NDJSON resource. Records are read and faked one at a
+     * time, when TestNG asks for the next row.
+     *
+     * @param path path to the resource, NDJSON files must have {@code .ndjson} or {@code .jsonl} extension
+     * @return data provider rows, one record per row
+     */
+    public static Iterator<Object[]> getDataProvider(final String path) {
+        return JsonDataProvider.open(path, FAKER);
+    }
+
+    /**
+     * Returns the parsed resource. Concurrent first calls wait for one of them to parse the file.
      *
-     * @param json the JSON string to flatten
-     * @return a JSONObject representing the flattened JSON
+     * @throws IllegalArgumentException if the resource is not found or cannot be read
+     * @throws JSONException            if the resource is not a JSON object or array
      */
-    private static JSONObject flatten(final String json) {
-        return new JSONObject(new JsonFlattener(json).flatten());
+    private static JsonTemplate getTemplate(final String path) {
+        try {
+            return RESOURCES.get(path, () -> JsonTemplate.parse(readStringFromFile(path)));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            // The loader throws unchecked exceptions only, rethrow them as if there were no cache
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Failed to load resource: " + path, e.getCause());
+        }
     }
 
     /**
-     * Unflattens a flattened JSON object back into its original form.
+     * Copies json objects and arrays recursively, other values are immutable and shared.
      *
-     * @param flatJson the flattened JSON object to unflatten
-     * @return a string representing the unflattened JSON
+     * @param value json value
+     * @return copy
+     */
+    /* default */ static Object deepCopy(final Object value) {
+        Object copy = value;
+        if (value instanceof JSONObject object) {
+            final var copied = new JSONObject();
+            object.keySet().forEach(key -> copied.put(key, deepCopy(object.opt(key))));
+            copy = copied;
+        } else if (value instanceof JSONArray array) {
+            final var copied = new JSONArray();
+            array.forEach(element -> copied.put(deepCopy(element)));
+            copy = copied;
+        }
+        return copy;
+    }
+
+    /**
+     * Converts maps, collections and beans to json the same way as serialization does, so the result does not
+     * share mutable state with the update value.
      */
-    private static String unflatten(final JSONObject flatJson) {
-        return new JsonUnflattener(flatJson.toString()).unflatten();
+    private static Object toJsonValue(final Object update) {
+        return update == null ? null : deepCopy(JSONObject.wrap(update));
     }
 }
@@ -0,0 +1,79 @@
+package serializer;
+
+import org.apache.commons.lang3.Validate;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash index of JSON objects in an array by one or more fields.
+ * <p>
+ * The array is scanned once, every lookup then costs O(1), so matching thousands of expected items against a large
+ * list response stays linear. Values are matched the same way as in
+ * {@link JsonDeserializer#findJsonInArray(JSONArray, String, Object)}: by {@code equals}, so {@code 1} and {@code 1L}
+ * are different values, and null matches JSON null. Objects that miss any of the fields are not indexed.
+ *
+ * <pre>{@code
+ * JsonIndex users = JsonIndex.of(response.getJSONArray("users"), "firstName", "lastName");
+ * JSONObject john = users.findFirst("John", "Doe");
+ * }</pre>
+ */
+public final class JsonIndex {
+
+    private final List<String> fields;
+    private final Map<List<Object>, List<JSONObject>> index = new HashMap<>();
+
+    private JsonIndex(final JSONArray array, final List<String> fields) {
+        this.fields = fields;
+        for (final var element : array) {
+            if (element instanceof JSONObject json && fields.stream().allMatch(json::has)) {
+                final var key = fields.stream().map(json::opt).toList();
+                index.computeIfAbsent(key, k -> new ArrayList<>()).add(json);
+            }
+        }
+    }
+
+    /**
+     * Indexes objects of the array by the fields.
+     *
+     * @param array  source array, objects are indexed by reference and not copied
+     * @param fields field names
+     * @return index
+     */
+    public static JsonIndex of(final JSONArray array, final String... fields) {
+        Validate.isTrue(fields.length > 0, "At least one field must be indexed");
+        return new JsonIndex(array, List.of(fields));
+    }
+
+    /**
+     * Returns all objects that have the values, in array order.
+     *
+     * @param values field values, in the order of the indexed fields
+     * @return matching objects, empty list if there are none
+     */
+    public List<JSONObject> findAll(final Object... values) {
+        Validate.isTrue(values.length == fields.size(),
+                "Expected %d values for fields %s but got %d", fields.size(), fields, values.length);
+        final var key = Arrays.stream(values)
+                .map(value -> value == null ? JSONObject.NULL : value)
+                .toList();
+        return Collections.unmodifiableList(index.getOrDefault(key, List.of()));
+    }
+
+    /**
+     * Returns the first object that has the values.
+     *
+     * @param values field values, in the order of the indexed fields
+     * @return matching object or empty object
+     */
+    public JSONObject findFirst(final Object... values) {
+        final var matches = findAll(values);
+        return matches.isEmpty() ? new JSONObject() : matches.getFirst();
+    }
+}
@@ -1,6 +1,21 @@
 package serializer;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
 
 /**
  * Utility class for loading JSON resources from the classpath.
@@ -25,9 +40,28 @@ import java.io.InputStream;
  * <pre>{@code
  * InputStream inputStream = JsonResourceLoader.getResourceAsStream("/jsons/example.json");
  * }</pre>
+ *
+ * <p>
+ * Readers of resources located on the file system (not inside a jar) are memory-mapped, so large fixtures are read by
+ * the OS page cache instead of being copied into a heap {@code byte[]} first.
+ * </p>
+ *
+ * <p>
+ * Locations of resources are resolved once per JVM and kept in an index, so repeated lookups of the same path do not
+ * scan the classpath and its jars again. Missing resources are not indexed, so they are found once they appear.
+ * </p>
  */
 public final class JsonResourceLoader {
 
+    private static final String FILE_PROTOCOL = "file";
+    private static final String JSON_EXTENSION = ".json";
+    private static final Location MISSING = new Location(null, null);
+
+    /**
+     * Resolved locations by resource path.
+     */
+    private static final ConcurrentMap<String, Location> LOCATIONS = new ConcurrentHashMap<>();
+
     private JsonResourceLoader() {
         // Utility class, no instantiation
     }
@@ -37,8 +71,171 @@ public final class JsonResourceLoader {
      *
      * @param path path to the resource (e.g., "/jsons/example.json")
      * @return InputStream of the resource, or null if not found
+     * @throws IllegalArgumentException if the resource is found but cannot be opened, unlike
+     *                                  {@link Class#getResourceAsStream(String)} that returns null then
      */
     public static InputStream getResourceAsStream(final String path) {
-        return JsonDeserializer.class.getResourceAsStream(path);
+        final var url = getResource(path);
+        if (url == null) {
+            return null;
+        }
+        try {
+            return url.openStream();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to read file: " + path, e);
+        }
+    }
+
+    /**
+     * Returns location of the resource from the index, resolving it on first use.
+     *
+     * @param path path to the resource (e.g., "/jsons/example.json")
+     * @return URL of the resource, or null if not found
+     */
+    public static URL getResource(final String path) {
+        return locate(path).url();
+    }
+
+    /**
+     * Returns file of the resource if the resource is located on the file system.
+     *
+     * @param path path to the resource (e.g., "/jsons/example.json")
+     * @return file, or null if the resource is not found or is a jar entry
+     */
+    public static Path getResourceFile(final String path) {
+        return locate(path).file();
+    }
+
+    /**
+     * Lists JSON resources of a directory located on the file system, including subdirectories.
+     *
+     * @param directory path to the directory (e.g., "/jsons")
+     * @return resource paths (e.g., "/jsons/example.json"), empty if the directory is not found or is inside a jar
+     */
+    public static List<String> listResources(final String directory) {
+        final var root = getResourceFile(directory);
+        if (root == null || !Files.isDirectory(root)) {
+            return List.of();
+        }
+        final var prefix = directory.endsWith("/") ? directory : directory + "/";
+        try (Stream<Path> files = Files.walk(root)) {
+            return files
+                    .filter(file -> file.toString().endsWith(JSON_EXTENSION) && Files.isRegularFile(file))
+                    .map(file -> prefix + root.relativize(file).toString().replace(File.separatorChar, '/'))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to list directory: " + directory, e);
+        }
+    }
+
+    /**
+     * Clears the resource index, e.g. after resources are added to the classpath at runtime.
+     */
+    public static void clearResourceIndex() {
+        LOCATIONS.clear();
+    }
+
+    /**
+     * Memory-maps the file.
+     *
+     * @param file file, at most 2 GB
+     * @return read-only buffer with file content
+     * @throws IOException if the file cannot be read
+     */
+    public static ByteBuffer map(final Path file) throws IOException {
+        try (var channel = FileChannel.open(file)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Opens UTF-8 reader of the resource: memory-mapped for files up to 2 GB, streamed for bigger files and jar
+     * entries.
+     *
+     * @param path path to the resource (e.g., "/jsons/example.json")
+     * @return reader, or null if the resource is not found
+     * @throws IOException if the resource cannot be read
+     */
+    public static Reader openReader(final String path) throws IOException {
+        final var file = getResourceFile(path);
+        final InputStream inputStream;
+        if (file == null) {
+            inputStream = getResourceAsStream(path);
+        } else if (Files.size(file) <= Integer.MAX_VALUE) {
+            inputStream = new ByteBufferInputStream(map(file));
+        } else {
+            inputStream = Files.newInputStream(file);
+        }
+        return inputStream == null ? null : new InputStreamReader(inputStream, StandardCharsets.UTF_8);
+    }
+
+    private static Location locate(final String path) {
+        // Missing resources resolve to null, which is not stored in the index
+        final var location = LOCATIONS.computeIfAbsent(path, JsonResourceLoader::resolve);
+        return location == null ? MISSING : location;
+    }
+
+    private static Location resolve(final String path) {
+        final var url = JsonDeserializer.class.getResource(path);
+        if (url == null) {
+            return null;
+        }
+        Path file = null;
+        if (FILE_PROTOCOL.equals(url.getProtocol())) {
+            try {
+                file = Path.of(url.toURI());
+            } catch (URISyntaxException e) {
+                throw new IllegalArgumentException("Invalid resource URL: " + url, e);
+            }
+        }
+        return new Location(url, file);
+    }
+
+    /**
+     * Resolved location of a resource.
+     *
+     * @param url  URL, or null if the resource is not found
+     * @param file file, or null if the resource is not found or is a jar entry
+     */
+    private record Location(URL url, Path file) {
+    }
+
+    /**
+     * Input stream over a byte buffer.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(final ByteBuffer buffer) {
+            super();
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) {
+            final int count;
+            if (length == 0) {
+                count = 0;
+            } else if (buffer.hasRemaining()) {
+                count = Math.min(length, buffer.remaining());
+                buffer.get(bytes, offset, count);
+            } else {
+                count = -1;
+            }
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
     }
 }
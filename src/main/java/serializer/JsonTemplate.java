@@ -0,0 +1,127 @@
+package serializer;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiled JSON resource with its fake data placeholders, e.g. {@code "{$current_date}"}.
+ * <p>
+ * Placeholders are located once at parse time and replaced by slots in the private tree. A new instance is built by
+ * one traversal that copies the tree and fills the slots, and only the placeholder values are passed to the faker.
+ */
+final class JsonTemplate {
+
+    private static final String PLACEHOLDER_START = "{$";
+
+    private final Object root;
+    private final List<String> placeholders = new ArrayList<>();
+    private final int weight;
+
+    private JsonTemplate(final Object root, final int weight) {
+        this.weight = weight;
+        this.root = compile(root);
+    }
+
+    /**
+     * Parses JSON object or array.
+     *
+     * @param text JSON text
+     * @return template
+     * @throws JSONException if the text is not a JSON object or array, or has anything but whitespace after it
+     */
+    /* default */ static JsonTemplate parse(final String text) {
+        final var tokener = new JSONTokener(text);
+        final var value = tokener.nextValue();
+        if (!(value instanceof JSONObject) && !(value instanceof JSONArray)) {
+            throw new JSONException("A JSON text must be an object or an array");
+        }
+        if (tokener.nextClean() != 0) {
+            throw tokener.syntaxError("Unexpected text after the JSON value");
+        }
+        return new JsonTemplate(value, text.length());
+    }
+
+    /**
+     * Returns size of the source text, used as cache weight.
+     *
+     * @return number of characters
+     */
+    /* default */ int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Returns placeholder values of one instance, to be passed to the faker.
+     *
+     * @return new object with placeholder values keyed by their index
+     */
+    /* default */ JSONObject getPlaceholders() {
+        final var values = new JSONObject();
+        for (int i = 0; i < placeholders.size(); i++) {
+            values.put(String.valueOf(i), placeholders.get(i));
+        }
+        return values;
+    }
+
+    /**
+     * Creates a new instance with fake values at the placeholder positions.
+     *
+     * @param values faked {@link #getPlaceholders() placeholders}
+     * @return JSON object or array
+     */
+    /* default */ Object newInstance(final JSONObject values) {
+        return copy(root, values);
+    }
+
+    /**
+     * Copies the parsed tree, replacing placeholder values by slots in document order.
+     */
+    private Object compile(final Object node) {
+        Object compiled = node;
+        if (node instanceof JSONObject object) {
+            final var copy = new JSONObject();
+            object.keySet().forEach(key -> copy.put(key, compile(object.opt(key))));
+            compiled = copy;
+        } else if (node instanceof JSONArray array) {
+            final var copy = new JSONArray();
+            array.forEach(element -> copy.put(compile(element)));
+            compiled = copy;
+        } else if (node instanceof String value && value.contains(PLACEHOLDER_START)) {
+            compiled = new Slot(placeholders.size());
+            placeholders.add(value);
+        }
+        return compiled;
+    }
+
+    /**
+     * Copies the compiled tree, filling slots with fake values.
+     */
+    private static Object copy(final Object node, final JSONObject values) {
+        Object copy = node;
+        if (node instanceof JSONObject object) {
+            final var copied = new JSONObject();
+            object.keySet().forEach(key -> copied.put(key, copy(object.opt(key), values)));
+            copy = copied;
+        } else if (node instanceof JSONArray array) {
+            final var copied = new JSONArray();
+            array.forEach(element -> copied.put(copy(element, values)));
+            copy = copied;
+        } else if (node instanceof Slot slot) {
+            copy = values.opt(String.valueOf(slot.index()));
+        }
+        return copy;
+    }
+
+    /**
+     * Position of a placeholder value in the compiled tree.
+     *
+     * @param index placeholder index
+     */
+    private record Slot(int index) {
+    }
+}
@@ -0,0 +1,126 @@
+package serializer;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compiled path of a JSON field to be updated, e.g. {@code "a.b[0].c"}, {@code "[1].c"} or {@code "a[\"x.y\"]"}.
+ * <p>
+ * A path is parsed once into object key and array index segments and cached, so updating a field walks straight to
+ * the target node instead of flattening the whole document.
+ */
+final class JsonUpdatePath {
+
+    private static final ConcurrentMap<String, JsonUpdatePath> COMPILED = new ConcurrentHashMap<>();
+
+    /**
+     * Segments of the path: {@link String} object keys and {@link Integer} array indexes.
+     */
+    private final List<Object> segments;
+
+    private JsonUpdatePath(final List<Object> segments) {
+        this.segments = segments;
+    }
+
+    /**
+     * Returns compiled path, parsing it on first use.
+     *
+     * @param path field path
+     * @return compiled path
+     * @throws IllegalArgumentException if the path is malformed
+     */
+    static JsonUpdatePath compile(final String path) {
+        return COMPILED.computeIfAbsent(path, JsonUpdatePath::parse);
+    }
+
+    /**
+     * Replaces value of the field if the field exists. Null value removes the field from its object.
+     *
+     * @param root  JSON object or array to be updated in place
+     * @param value new value of the field
+     * @return whether the field was found
+     */
+    boolean update(final Object root, final Object value) {
+        Object parent = root;
+        for (int i = 0; i < segments.size() - 1 && parent != null; i++) {
+            parent = child(parent, segments.get(i));
+        }
+
+        final var last = segments.getLast();
+        final boolean found = parent != null && child(parent, last) != null;
+        if (found) {
+            if (parent instanceof JSONObject object) {
+                object.put((String) last, value);
+            } else {
+                ((JSONArray) parent).put((int) (Integer) last, value);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns child node by key or index, {@link JSONObject#NULL} for JSON null, or null if there is no such child.
+     */
+    private static Object child(final Object node, final Object segment) {
+        Object child = null;
+        if (node instanceof JSONObject object && segment instanceof String key) {
+            child = object.opt(key);
+        } else if (node instanceof JSONArray array && segment instanceof Integer index && index < array.length()) {
+            child = array.opt(index);
+        }
+        return child;
+    }
+
+    private static JsonUpdatePath parse(final String path) {
+        final var segments = new ArrayList<>();
+        var i = 0;
+        while (i < path.length()) {
+            final char c = path.charAt(i);
+            if (c == '.') {
+                i++;
+            } else if (path.startsWith("[\"", i)) {
+                // Quoted key, may contain dots and brackets
+                final int end = path.indexOf("\"]", i + 2);
+                requireFound(end, path);
+                segments.add(path.substring(i + 2, end));
+                i = end + 2;
+            } else if (c == '[') {
+                final int end = path.indexOf(']', i);
+                requireFound(end, path);
+                segments.add(parseIndex(path.substring(i + 1, end), path));
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                segments.add(path.substring(i, end));
+                i = end;
+            }
+        }
+
+        if (segments.isEmpty()) {
+            throw new IllegalArgumentException("Empty JSON path: " + path);
+        }
+        return new JsonUpdatePath(List.copyOf(segments));
+    }
+
+    private static Integer parseIndex(final String index, final String path) {
+        try {
+            return Integer.valueOf(index);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(STR."Invalid array index '\{index}' in JSON path: \{path}", e);
+        }
+    }
+
+    private static void requireFound(final int index, final String path) {
+        if (index < 0) {
+            throw new IllegalArgumentException("Unclosed bracket in JSON path: " + path);
+        }
+    }
+}
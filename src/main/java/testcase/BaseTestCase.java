@@ -2,6 +2,7 @@ package testcase;
 
 import com.mbi.*;
 import com.mbi.request.RequestBuilder;
+import comparison.JsonComparator;
 import io.restassured.response.Response;
 import org.apache.commons.lang3.Validate;
 import org.json.JSONArray;
@@ -23,6 +24,11 @@ public abstract class BaseTestCase implements IConfigurable {
 
     private static final Random RANDOM = new Random();
 
+    /**
+     * Strict structural json comparison that stops at the first 20 differences, shared as it has no state.
+     */
+    private static final JsonComparator DEFAULT_COMPARATOR = JsonComparator.newBuilder().build();
+
     /**
      * Http requests based on rest-assured framework.
      */
@@ -110,6 +116,16 @@ public abstract class BaseTestCase implements IConfigurable {
         return new JSONArray(response.asString());
     }
 
+    /**
+     * Returns strict structural json comparator that stops at the first 20 differences, for large documents. Override
+     * it to compare with other settings, e.g. ignored paths.
+     *
+     * @return json comparator
+     */
+    protected JsonComparator comparator() {
+        return DEFAULT_COMPARATOR;
+    }
+
     /**
      * Loads JSON object from resource file.
      *
@@ -4,7 +4,9 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import org.json.JSONObject;
+import org.mockito.ArgumentCaptor;
 import org.mockito.MockedStatic;
+import org.mockito.stubbing.Answer;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
@@ -14,7 +16,17 @@ import software.amazon.awssdk.services.ssm.model.*;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
 
 import static config.LoadConfigUtils.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -94,11 +106,12 @@ public class ConfigTest {
     @Test
     void testReadSsmParameter() {
         // Arrange
+        LoadConfigUtils.clearCacheForTests();
         var mockClient = mock(SsmClient.class);
-        var mockParam = Parameter.builder().value("mocked-value").build();
-        var mockResponse = GetParameterResponse.builder().parameter(mockParam).build();
+        var mockParam = Parameter.builder().name("dummy").value("mocked-value").build();
+        var mockResponse = GetParametersResponse.builder().parameters(mockParam).build();
 
-        when(mockClient.getParameter(any(GetParameterRequest.class))).thenReturn(mockResponse);
+        when(mockClient.getParameters(any(GetParametersRequest.class))).thenReturn(mockResponse);
 
         try (MockedStatic<LoadConfigUtils> utilsMock = mockStatic(LoadConfigUtils.class, CALLS_REAL_METHODS)) {
             utilsMock.when(LoadConfigUtils::ssmClient).thenReturn(mockClient);
@@ -186,6 +199,429 @@ public class ConfigTest {
         assertEquals("cached-value2", values.get("param2"));
     }
 
+    @Test
+    void testSsmClientIsSharedAndCreatedByProvider() {
+        var created = new AtomicInteger();
+        var mockClient = mock(SsmClient.class);
+        LoadConfigUtils.setSsmClientProvider(() -> {
+            created.incrementAndGet();
+            return mockClient;
+        });
+
+        try {
+            assertSame(sharedSsmClient(), mockClient);
+            assertSame(sharedSsmClient(), mockClient);
+            assertEquals(created.get(), 1);
+
+            LoadConfigUtils.closeSsmClient();
+            verify(mockClient).close();
+
+            sharedSsmClient();
+            assertEquals(created.get(), 2);
+        } finally {
+            LoadConfigUtils.resetSsmClientProviderForTests();
+        }
+        verify(mockClient, times(2)).close();
+    }
+
+    @Test
+    void testSsmClientIsOwnedByCaller() {
+        var sharedClient = mock(SsmClient.class);
+        when(sharedClient.getParameters(any(GetParametersRequest.class)))
+                .thenAnswer(answerWithValues(new AtomicInteger()));
+        var clients = new ArrayList<>(List.of(sharedClient, mock(SsmClient.class)));
+        LoadConfigUtils.setSsmClientProvider(() -> clients.removeFirst());
+        LoadConfigUtils.clearCacheForTests();
+
+        try {
+            assertSame(sharedSsmClient(), sharedClient);
+            SsmClient ownClient;
+            try (var client = ssmClient()) {
+                ownClient = client;
+                assertNotSame(client, sharedClient);
+            }
+            verify(ownClient).close();
+
+            // Closing a caller-owned client does not affect the shared one
+            verify(sharedClient, never()).close();
+            assertEquals(readSsmParameter("owned1"), "value-owned1");
+        } finally {
+            LoadConfigUtils.resetSsmClientProviderForTests();
+        }
+    }
+
+    @Test
+    void testReadSsmParametersReuseSharedClient() {
+        var created = new AtomicInteger();
+        var mockClient = mock(SsmClient.class);
+        when(mockClient.getParameters(any(GetParametersRequest.class)))
+                .thenAnswer(answerWithValues(new AtomicInteger()));
+        LoadConfigUtils.setSsmClientProvider(() -> {
+            created.incrementAndGet();
+            return mockClient;
+        });
+        LoadConfigUtils.clearCacheForTests();
+
+        try {
+            assertEquals(readSsmParameter("shared1"), "value-shared1");
+            assertEquals(readSsmParameter("shared2"), "value-shared2");
+
+            assertEquals(created.get(), 1);
+            verify(mockClient, never()).close();
+        } finally {
+            LoadConfigUtils.resetSsmClientProviderForTests();
+        }
+    }
+
+    @Test
+    void testReadSsmParametersInChunksOfTen() {
+        var mockClient = mock(SsmClient.class);
+        var requested = Collections.synchronizedList(new ArrayList<List<String>>());
+        var answer = answerWithValues(new AtomicInteger());
+        when(mockClient.getParameters(any(GetParametersRequest.class))).thenAnswer(invocation -> {
+            requested.add(invocation.<GetParametersRequest>getArgument(0).names());
+            return answer.answer(invocation);
+        });
+        LoadConfigUtils.setSsmClientProvider(() -> mockClient);
+        var names = IntStream.range(0, 25).mapToObj(i -> "chunked" + i).toArray(String[]::new);
+
+        try {
+            var values = readSsmParameters(names);
+
+            assertEquals(values.size(), 25);
+            assertEquals(values.get("chunked24"), "value-chunked24");
+            assertEquals(requested.size(), 3);
+            assertTrue(requested.stream().allMatch(chunk -> chunk.size() <= 10));
+        } finally {
+            LoadConfigUtils.resetSsmClientProviderForTests();
+        }
+    }
+
+    @Test
+    void testConcurrentReadsOfSameParameterFetchOnce() throws Exception {
+        var calls = new AtomicInteger();
+        var answer = answerWithValues(calls);
+        var mockClient = mock(SsmClient.class);
+        when(mockClient.getParameters(any(GetParametersRequest.class))).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return answer.answer(invocation);
+        });
+        LoadConfigUtils.setSsmClientProvider(() -> mockClient);
+        var executor = Executors.newFixedThreadPool(8);
+
+        try {
+            var start = new CountDownLatch(1);
+            var reads = IntStream.range(0, 8)
+                    .mapToObj(i -> executor.submit(() -> {
+                        start.await();
+                        return readSsmParameter("concurrent");
+                    }))
+                    .toList();
+            start.countDown();
+
+            for (var read : reads) {
+                assertEquals(read.get(), "value-concurrent");
+            }
+            assertEquals(calls.get(), 1);
+        } finally {
+            executor.shutdownNow();
+            LoadConfigUtils.resetSsmClientProviderForTests();
+        }
+    }
+
+    @Test
+    void testNotFoundParameterIsCachedForNegativeTtl() {
+        var calls = new AtomicInteger();
+        var mockClient = mock(SsmClient.class);
+        when(mockClient.getParameters(any(GetParametersRequest.class))).thenAnswer(invocation -> {
+            calls.incrementAndGet();
+            return GetParametersResponse.builder().invalidParameters("absent").build();
+        });
+        var ticker = new AtomicLong();
+        var cache = new SsmParameterCache(() -> mockClient, ticker::get);
+        cache.setNegativeTtl(Duration.ofSeconds(60));
+
+        assertTrue(cache.getAll(List.of("absent")).isEmpty());
+        ticker.addAndGet(Duration.ofSeconds(59).toNanos());
+        assertTrue(cache.getAll(List.of("absent")).isEmpty());
+        assertEquals(calls.get(), 1);
+
+        var stats = cache.stats();
+        assertEquals(stats.hitCount(), 1);
+        assertEquals(stats.missCount(), 1);
+        assertEquals(stats.loadCount(), 1);
+
+        ticker.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertTrue(cache.getAll(List.of("absent")).isEmpty());
+        assertEquals(calls.get(), 2);
+    }
+
+    @Test
+    void testStaleValueIsRefreshedAhead() {
+        var calls = new AtomicInteger();
+        var mockClient = mock(SsmClient.class);
+        when(mockClient.getParameters(any(GetParametersRequest.class))).thenAnswer(invocation -> {
+            var value = "v" + calls.incrementAndGet();
+            return GetParametersResponse.builder()
+                    .parameters(Parameter.builder().name("rotating").value(value).build())
+                    .build();
+        });
+        var ticker = new AtomicLong();
+        var cache = new SsmParameterCache(() -> mockClient, ticker::get);
+        cache.setTtl(Duration.ofMinutes(10));
+
+        assertEquals(cache.getAll(List.of("rotating")), Map.of("rotating", "v1"));
+        ticker.addAndGet(Duration.ofMinutes(7).toNanos());
+        assertEquals(cache.getAll(List.of("rotating")), Map.of("rotating", "v1"));
+        assertEquals(calls.get(), 1);
+
+        // Past the refresh point, before expiry: the cached value is returned and refreshed in the background
+        ticker.addAndGet(Duration.ofMinutes(1).toNanos());
+        assertEquals(cache.getAll(List.of("rotating")), Map.of("rotating", "v1"));
+        assertTrue(cache.awaitInFlight(Duration.ofSeconds(5)));
+
+        assertEquals(calls.get(), 2);
+        assertEquals(cache.getAll(List.of("rotating")), Map.of("rotating", "v2"));
+    }
+
+    @Test
+    void testFailedRefreshIsRetriedLater() {
+        var calls = new AtomicInteger();
+        var mockClient = mock(SsmClient.class);
+        when(mockClient.getParameters(any(GetParametersRequest.class))).thenAnswer(invocation -> {
+            if (calls.incrementAndGet() > 1) {
+                throw new RuntimeException("SSM failure");
+            }
+            return GetParametersResponse.builder()
+                    .parameters(Parameter.builder().name("flaky").value("v1").build())
+                    .build();
+        });
+        var ticker = new AtomicLong();
+        var cache = new SsmParameterCache(() -> mockClient, ticker::get);
+        cache.setTtl(Duration.ofMinutes(10));
+
+        cache.getAll(List.of("flaky"));
+        ticker.addAndGet(Duration.ofMinutes(8).toNanos());
+        assertEquals(cache.getAll(List.of("flaky")), Map.of("flaky", "v1"));
+        assertTrue(cache.awaitInFlight(Duration.ofSeconds(5)));
+        assertEquals(calls.get(), 2);
+
+        // Reads right after the failure do not call SSM again
+        ticker.addAndGet(Duration.ofSeconds(29).toNanos());
+        assertEquals(cache.getAll(List.of("flaky")), Map.of("flaky", "v1"));
+        assertEquals(calls.get(), 2);
+
+        ticker.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertEquals(cache.getAll(List.of("flaky")), Map.of("flaky", "v1"));
+        assertTrue(cache.awaitInFlight(Duration.ofSeconds(5)));
+        assertEquals(calls.get(), 3);
+    }
+
+    @Test
+    void testReadSsmParametersWithSelectorOrArn() {
+        var arn = "arn:aws:ssm:us-east-1:123456789012:parameter/selector/b";
+        var mockClient = mock(SsmClient.class);
+        when(mockClient.getParameters(any(GetParametersRequest.class))).thenReturn(GetParametersResponse.builder()
+                .parameters(
+                        Parameter.builder().name("/selector/a").selector(":3").value("v3")
+                                .arn("arn:aws:ssm:us-east-1:123456789012:parameter/selector/a").build(),
+                        Parameter.builder().name("/selector/a").selector(":prod").value("prod")
+                                .arn("arn:aws:ssm:us-east-1:123456789012:parameter/selector/a").build(),
+                        Parameter.builder().name("/selector/b").value("b").arn(arn).build())
+                .build());
+        LoadConfigUtils.setSsmClientProvider(() -> mockClient);
+        LoadConfigUtils.clearCacheForTests();
+
+        try {
+            assertEquals(readSsmParameters("/selector/a:3", "/selector/a:prod", arn),
+                    Map.of("/selector/a:3", "v3", "/selector/a:prod", "prod", arn, "b"));
+            assertEquals(readSsmParameter("/selector/a:3"), "v3");
+            verify(mockClient, times(1)).getParameters(any(GetParametersRequest.class));
+        } finally {
+            LoadConfigUtils.resetSsmClientProviderForTests();
+        }
+    }
+
+    @Test
+    void testPreloadSsmParametersByPath() {
+        var mockClient = mock(SsmClient.class);
+        when(mockClient.getParametersByPath(any(GetParametersByPathRequest.class))).thenReturn(
+                GetParametersByPathResponse.builder()
+                        .parameters(Parameter.builder().name("/preload/a").value("1").build())
+                        .nextToken("page2")
+                        .build(),
+                GetParametersByPathResponse.builder()
+                        .parameters(Parameter.builder().name("/preload/nested/b").value("2").build())
+                        .build());
+        LoadConfigUtils.setSsmClientProvider(() -> mockClient);
+
+        try {
+            assertEquals(preloadSsmParameters("/preload", true), 2);
+
+            assertEquals(readSsmParameter("/preload/a"), "1");
+            assertEquals(readSsmParameters("/preload/nested/b"), Map.of("/preload/nested/b", "2"));
+            verify(mockClient, never()).getParameters(any(GetParametersRequest.class));
+
+            var requests = ArgumentCaptor.forClass(GetParametersByPathRequest.class);
+            verify(mockClient, times(2)).getParametersByPath(requests.capture());
+            assertNull(requests.getAllValues().get(0).nextToken());
+            assertEquals(requests.getAllValues().get(1).nextToken(), "page2");
+            assertTrue(requests.getAllValues().get(1).recursive());
+        } finally {
+            LoadConfigUtils.resetSsmClientProviderForTests();
+        }
+    }
+
+    @Test
+    void testPreloadSsmParametersInBackground() {
+        var mockClient = mock(SsmClient.class);
+        when(mockClient.getParametersByPath(any(GetParametersByPathRequest.class))).thenReturn(
+                GetParametersByPathResponse.builder()
+                        .parameters(Parameter.builder().name("/background/a").value("1").build())
+                        .build());
+        LoadConfigUtils.setSsmClientProvider(() -> mockClient);
+
+        try {
+            var preload = preloadSsmParametersInBackground("/background", true);
+
+            assertTrue(awaitSsmReads(Duration.ofSeconds(5)));
+            assertEquals(preload.join().intValue(), 1);
+            assertEquals(readSsmParameter("/background/a"), "1");
+            verify(mockClient, never()).getParameters(any(GetParametersRequest.class));
+        } finally {
+            LoadConfigUtils.resetSsmClientProviderForTests();
+        }
+    }
+
+    @Test
+    void testPreloadSsmParametersFailure() {
+        var mockClient = mock(SsmClient.class);
+        when(mockClient.getParametersByPath(any(GetParametersByPathRequest.class)))
+                .thenThrow(new RuntimeException("SSM failure"));
+        LoadConfigUtils.setSsmClientProvider(() -> mockClient);
+
+        try {
+            var ex = expectThrows(IllegalStateException.class, () -> preloadSsmParameters("/broken", false));
+            assertTrue(ex.getMessage().contains("Unable to preload SSM parameters: /broken"));
+        } finally {
+            LoadConfigUtils.resetSsmClientProviderForTests();
+        }
+    }
+
+    @Test
+    void testSsmSnapshotIsReadAndRefreshedInBackground() throws Exception {
+        var snapshot = new SsmSnapshot(Files.createTempDirectory("ssm").resolve("snapshot.enc"), "secret",
+                Duration.ofHours(1));
+        LoadConfigUtils.clearCacheForTests();
+        LoadConfigUtils.putToCacheForTests("snap1", "s1");
+        LoadConfigUtils.putToCacheForTests("snap2", "s2");
+        LoadConfigUtils.saveSsmSnapshot(snapshot);
+        LoadConfigUtils.clearCacheForTests();
+
+        var refresh = new CountDownLatch(1);
+        var calls = new AtomicInteger();
+        var answer = answerWithValues(calls);
+        var mockClient = mock(SsmClient.class);
+        when(mockClient.getParameters(any(GetParametersRequest.class))).thenAnswer(invocation -> {
+            refresh.await();
+            return answer.answer(invocation);
+        });
+        LoadConfigUtils.setSsmClientProvider(() -> mockClient);
+
+        try {
+            assertFalse(Files.readString(snapshot.getFile()).contains("s1"));
+            assertEquals(LoadConfigUtils.loadSsmSnapshot(snapshot), 2);
+            assertEquals(readSsmParameters("snap1", "snap2"), Map.of("snap1", "s1", "snap2", "s2"));
+
+            refresh.countDown();
+            for (int i = 0; i < 50 && !"value-snap1".equals(readSsmParameter("snap1")); i++) {
+                Thread.sleep(20);
+            }
+            assertEquals(readSsmParameter("snap1"), "value-snap1");
+            assertEquals(calls.get(), 1);
+        } finally {
+            LoadConfigUtils.resetSsmClientProviderForTests();
+        }
+    }
+
+    @Test
+    void testSsmSnapshotIsIgnoredIfExpiredOrKeyIsWrong() throws Exception {
+        var file = Files.createTempDirectory("ssm").resolve("snapshot.enc");
+        LoadConfigUtils.putToCacheForTests("snap3", "s3");
+        LoadConfigUtils.saveSsmSnapshot(new SsmSnapshot(file, "secret", Duration.ofHours(1)));
+
+        assertEquals(LoadConfigUtils.loadSsmSnapshot(new SsmSnapshot(file, "other", Duration.ofHours(1))), 0);
+        Thread.sleep(10);
+        assertEquals(LoadConfigUtils.loadSsmSnapshot(new SsmSnapshot(file, "secret", Duration.ofMillis(1))), 0);
+        assertEquals(LoadConfigUtils.loadSsmSnapshot(
+                new SsmSnapshot(file.resolveSibling("missing.enc"), "secret", Duration.ofHours(1))), 0);
+        assertEquals(LoadConfigUtils.loadSsmSnapshot(), 0);
+    }
+
+    @Test
+    void testSsmSnapshotIsIgnoredIfCorrupt() throws Exception {
+        var file = Files.createTempDirectory("ssm").resolve("snapshot.enc");
+        var snapshot = new SsmSnapshot(file, "secret", Duration.ofHours(1));
+
+        Files.writeString(file, "not Base64!");
+        assertEquals(LoadConfigUtils.loadSsmSnapshot(snapshot), 0);
+        // Shorter than the IV
+        Files.writeString(file, "AAAAAAA=");
+        assertEquals(LoadConfigUtils.loadSsmSnapshot(snapshot), 0);
+        Files.writeString(file, "");
+        assertEquals(LoadConfigUtils.loadSsmSnapshot(snapshot), 0);
+    }
+
+    @Test
+    void testSsmSnapshotKeepsFetchTimeOfValuesNotRefreshed() throws Exception {
+        var file = Files.createTempDirectory("ssm").resolve("snapshot.enc");
+        LoadConfigUtils.clearCacheForTests();
+        LoadConfigUtils.putToCacheForTests("snap5", "s5");
+        LoadConfigUtils.saveSsmSnapshot(new SsmSnapshot(file, "secret", Duration.ofHours(1)));
+        LoadConfigUtils.clearCacheForTests();
+        Thread.sleep(300);
+
+        var mockClient = mock(SsmClient.class);
+        when(mockClient.getParameters(any(GetParametersRequest.class)))
+                .thenThrow(new RuntimeException("SSM failure"));
+        LoadConfigUtils.setSsmClientProvider(() -> mockClient);
+
+        try {
+            // The refresh fails, so the value is saved again with the time it was fetched at first
+            assertEquals(LoadConfigUtils.loadSsmSnapshot(new SsmSnapshot(file, "secret", Duration.ofHours(1))), 1);
+            assertTrue(LoadConfigUtils.awaitSsmReads(Duration.ofSeconds(5)));
+            LoadConfigUtils.saveSsmSnapshot(new SsmSnapshot(file, "secret", Duration.ofHours(1)));
+
+            assertEquals(LoadConfigUtils.loadSsmSnapshot(new SsmSnapshot(file, "secret", Duration.ofMillis(200))), 0);
+        } finally {
+            LoadConfigUtils.resetSsmClientProviderForTests();
+            LoadConfigUtils.clearCacheForTests();
+        }
+    }
+
+    @Test
+    void testSsmCacheStats() {
+        var stats = new SsmCacheStats(3, 1, 2, 2, Duration.ofMillis(400));
+
+        assertEquals(stats.hitRate(), 0.75);
+        assertEquals(stats.averageLoadTime(), Duration.ofMillis(100));
+        assertEquals(new SsmCacheStats(0, 0, 0, 0, Duration.ZERO).averageLoadTime(), Duration.ZERO);
+    }
+
+    /**
+     * Returns every requested parameter with value "value-" + name and counts the calls.
+     */
+    private static Answer<GetParametersResponse> answerWithValues(final AtomicInteger calls) {
+        return invocation -> {
+            calls.incrementAndGet();
+            GetParametersRequest request = invocation.getArgument(0);
+            var parameters = request.names().stream()
+                    .map(name -> Parameter.builder().name(name).value("value-" + name).build())
+                    .toList();
+            return GetParametersResponse.builder().parameters(parameters).build();
+        };
+    }
+
     static class JsonHandler implements HttpHandler {
 
         @Override
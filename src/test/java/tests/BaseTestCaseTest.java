@@ -106,6 +106,14 @@ public class BaseTestCaseTest extends BaseTestCase {
         assertEquals(res.toString(), "{\"a\":1}");
     }
 
+    @Test
+    public void testCanCompareJson() {
+        var res = getResources("/jsons/test_json_array.json");
+
+        assertSame(comparator(), comparator());
+        assertTrue(comparator().compare(res, getResources("/jsons/test_json_array.json")).isEmpty());
+    }
+
     @Test
     public void testCanConvertResponseToJson() {
         var r = http.get(baseUrl + "/json-object");
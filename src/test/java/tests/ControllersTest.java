@@ -1,11 +1,14 @@
 package tests;
 
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
 import com.mbi.request.RequestBuilder;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import controllers.*;
 import io.restassured.response.Response;
+import org.json.JSONObject;
 import org.slf4j.LoggerFactory;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
@@ -14,8 +17,22 @@ import org.testng.annotations.Test;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Function;
+import java.util.stream.IntStream;
 
 import static org.testng.Assert.*;
 import static testcase.BaseTestCase.toJson;
@@ -247,6 +264,501 @@ public class ControllersTest {
         assertEquals(toJson(r).getInt("a"), 1);
     }
 
+    @Test
+    public void testCanSetPollSchedule() {
+        var waiter = Waiter.<Response>newBuilder()
+                .setSupplier(() -> new RequestBuilder().get(baseUrl + "/success"))
+                .setResultToString(Response::asString)
+                .setTimeout(Duration.ofSeconds(2))
+                .setPollSchedule(PollSchedule.exponential(Duration.ofMillis(10), Duration.ofMillis(200)))
+                .build();
+
+        var ex = expectThrows(TimeExceededRuntimeException.class, () -> waiter
+                .waitCondition(response -> response.statusCode() == 20));
+        assertTrue(ex.getMessage().contains("Expected condition not met. Max waiting time exceeded"));
+    }
+
+    @Test
+    public void testPollSchedulesStayWithinBounds() {
+        var max = Duration.ofMillis(500);
+        var schedules = new PollSchedule[]{
+                PollSchedule.fixed(Duration.ofMillis(100)),
+                PollSchedule.exponential(Duration.ofMillis(10), max),
+                PollSchedule.decorrelatedJitter(Duration.ofMillis(10), max),
+                PollSchedule.fibonacci(Duration.ofMillis(10), max),
+                PollSchedule.linear(Duration.ofMillis(10), Duration.ofMillis(50), max)
+        };
+
+        for (var schedule : schedules) {
+            var delay = Duration.ZERO;
+            for (int attempt = 1; attempt <= 100; attempt++) {
+                delay = schedule.nextDelay(attempt, delay);
+                assertFalse(delay.isNegative());
+                assertTrue(delay.compareTo(max) <= 0, "Delay exceeds max: " + delay);
+            }
+        }
+
+        assertEquals(PollSchedule.fibonacci(Duration.ofMillis(10), max).nextDelay(5, Duration.ZERO),
+                Duration.ofMillis(50));
+        assertEquals(PollSchedule.linear(Duration.ofMillis(10), Duration.ofMillis(50), max)
+                .nextDelay(3, Duration.ZERO), Duration.ofMillis(110));
+        assertEquals(PollSchedule.exponential(Duration.ofMillis(10), max, 2, 0)
+                .nextDelay(4, Duration.ZERO), Duration.ofMillis(80));
+    }
+
+    @Test
+    public void testCanWaitAsync() {
+        var waiter = Waiter.<Response>newBuilder()
+                .setSupplier(() -> new RequestBuilder().get(baseUrl + "/success"))
+                .setResultToString(Response::asString)
+                .setTimeout(Duration.ofSeconds(10))
+                .build();
+
+        var r = waiter.waitConditionAsync(response -> response.statusCode() == 200).join();
+
+        assertEquals(toJson(r).getInt("a"), 1);
+    }
+
+    @Test
+    public void testAsyncWaitFailsWithTimeExceeded() {
+        var waiter = Waiter.<Response>newBuilder()
+                .setSupplier(() -> new RequestBuilder().get(baseUrl + "/success"))
+                .setResultToString(Response::asString)
+                .setTimeout(Duration.ofSeconds(1))
+                .setIdleDuration(Duration.ofMillis(100))
+                .build();
+
+        var future = waiter.waitConditionAsync(response -> response.statusCode() == 20, "status == 20");
+
+        var ex = expectThrows(CompletionException.class, future::join);
+        assertTrue(ex.getCause() instanceof TimeExceededRuntimeException);
+        assertTrue(ex.getCause().getMessage().contains("Predicate: status == 20"));
+        assertTrue(ex.getCause().getMessage().contains("Expected condition not met. Max waiting time exceeded"));
+        assertTrue(ex.getCause().getMessage().contains("Result: {\"a\":1}"));
+    }
+
+    @Test
+    public void testManyAsyncWaitsRunConcurrently() {
+        var waits = 1000;
+        // Every supplier blocks until all waits have polled, so the waits finish only if they run at the same time
+        var allPolled = new CountDownLatch(waits);
+        var futures = IntStream.range(0, waits)
+                .mapToObj(_ -> {
+                    var polled = new AtomicBoolean();
+                    return Waiter.<Boolean>newBuilder()
+                            .setSupplier(() -> {
+                                if (polled.compareAndSet(false, true)) {
+                                    allPolled.countDown();
+                                }
+                                try {
+                                    return allPolled.await(5, TimeUnit.SECONDS);
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                    return false;
+                                }
+                            })
+                            .setResultToString(String::valueOf)
+                            .setTimeout(Duration.ofSeconds(10))
+                            .setIdleDuration(Duration.ofMillis(10))
+                            .build()
+                            .waitConditionAsync(Boolean::booleanValue);
+                })
+                .toArray(CompletableFuture[]::new);
+
+        CompletableFuture.allOf(futures).join();
+        assertEquals(allPolled.getCount(), 0);
+    }
+
+    @Test
+    public void testCantWaitAsyncWithoutSupplier() {
+        var waiter = Waiter.<Response>newBuilder()
+                .setResultToString(Response::asString)
+                .build();
+
+        var ex = expectThrows(IllegalStateException.class, () -> waiter
+                .waitConditionAsync(response -> response.statusCode() == 200));
+        assertTrue(ex.getMessage().contains("Supplier, resultToString, and expectedCondition must not be null"));
+    }
+
+    @Test
+    public void testHangingSupplierIsInterruptedAtDeadline() {
+        var interrupted = new AtomicBoolean();
+        var waiter = Waiter.<String>newBuilder()
+                .setSupplier(() -> {
+                    try {
+                        Thread.sleep(Duration.ofSeconds(30));
+                    } catch (InterruptedException e) {
+                        interrupted.set(true);
+                    }
+                    return "late";
+                })
+                .setResultToString(String::valueOf)
+                .setTimeout(Duration.ofMillis(500))
+                .setInterruptibleSupplier(true)
+                .build();
+
+        var start = System.nanoTime();
+        var ex = expectThrows(TimeExceededRuntimeException.class, () -> waiter.waitCondition("done"::equals));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(5)) < 0);
+        assertTrue(ex.getMessage().contains("Max waiting time exceeded inside supplier call"));
+        assertTrue(ex.getMessage().contains("Result: <no result>"));
+        Waiter.<Boolean>newBuilder()
+                .setSupplier(interrupted::get)
+                .setResultToString(String::valueOf)
+                .setTimeout(Duration.ofSeconds(5))
+                .setIdleDuration(Duration.ofMillis(10))
+                .build()
+                .waitCondition(Boolean::booleanValue);
+    }
+
+    @Test
+    public void testHangingSupplierReportsLastResult() {
+        var calls = new AtomicInteger();
+        var waiter = Waiter.<Integer>newBuilder()
+                .setSupplier(() -> {
+                    if (calls.incrementAndGet() > 1) {
+                        LockSupport.parkNanos(Duration.ofSeconds(30).toNanos());
+                    }
+                    return calls.get();
+                })
+                .setResultToString(String::valueOf)
+                .setTimeout(Duration.ofMillis(500))
+                .setIdleDuration(Duration.ofMillis(10))
+                .setInterruptibleSupplier(true)
+                .build();
+
+        var ex = expectThrows(CompletionException.class, () -> waiter.waitConditionAsync(value -> value > 5).join());
+
+        assertTrue(ex.getCause() instanceof TimeExceededRuntimeException);
+        assertTrue(ex.getCause().getMessage().contains("Max waiting time exceeded inside supplier call"));
+        assertTrue(ex.getCause().getMessage().contains("Result: 1"));
+    }
+
+    @Test
+    public void testInterruptibleSupplierReturnsResult() {
+        var waiter = Waiter.<Response>newBuilder()
+                .setSupplier(() -> new RequestBuilder().get(baseUrl + "/success"))
+                .setResultToString(Response::asString)
+                .setTimeout(Duration.ofSeconds(10))
+                .setInterruptibleSupplier(true)
+                .build();
+
+        var r = waiter.waitCondition(response -> response.statusCode() == 200);
+
+        assertEquals(toJson(r).getInt("a"), 1);
+    }
+
+    @Test
+    public void testWaiterRecordsMetrics() {
+        var counter = new AtomicInteger();
+        var waiter = Waiter.<Integer>newBuilder()
+                .setName("metrics-test")
+                .setSupplier(counter::incrementAndGet)
+                .setResultToString(String::valueOf)
+                .setTimeout(Duration.ofSeconds(10))
+                .setIdleDuration(Duration.ofMillis(10))
+                .build();
+
+        waiter.waitCondition(value -> value == 3);
+        waiter.waitConditionAsync(value -> value == 5).join();
+        expectThrows(TimeExceededRuntimeException.class, () -> Waiter.<Integer>newBuilder()
+                .setName("metrics-test")
+                .setSupplier(counter::get)
+                .setResultToString(String::valueOf)
+                .setTimeout(Duration.ofMillis(100))
+                .setIdleDuration(Duration.ofMillis(10))
+                .build()
+                .waitCondition(value -> value < 0));
+
+        var stats = WaiterMetrics.getAll().get("metrics-test");
+        assertEquals(stats.getWaits(), 3);
+        assertEquals(stats.getTimeouts(), 1);
+        assertTrue(stats.getPolls() >= 6);
+        assertEquals(stats.getTimeToCondition().getCount(), 2);
+        assertTrue(stats.getIdleTime().toMillis() >= 30);
+        assertTrue(WaiterMetrics.summary().contains("Waiter [metrics-test] waits=3 timeouts=1"));
+    }
+
+    @Test
+    public void testWaiterMetricsSinceSnapshot() {
+        var waiter = Waiter.<Integer>newBuilder()
+                .setName("snapshot-test")
+                .setSupplier(() -> 1)
+                .setResultToString(String::valueOf)
+                .setTimeout(Duration.ofSeconds(10))
+                .build();
+
+        waiter.waitCondition(value -> value == 1);
+        var snapshot = WaiterMetrics.snapshot();
+        waiter.waitCondition(value -> value == 1);
+        waiter.waitCondition(value -> value == 1);
+
+        var recent = WaiterMetrics.since(snapshot).get("snapshot-test");
+        assertEquals(recent.getWaits(), 2);
+        assertEquals(recent.getTimeToCondition().getCount(), 2);
+        assertEquals(snapshot.get("snapshot-test").getWaits(), 1);
+        assertEquals(WaiterMetrics.getAll().get("snapshot-test").getWaits(), 3);
+        assertFalse(WaiterMetrics.since(WaiterMetrics.snapshot()).containsKey("snapshot-test"));
+        assertTrue(WaiterMetrics.summary(WaiterMetrics.since(snapshot))
+                .contains("Waiter [snapshot-test] waits=2 timeouts=0"));
+    }
+
+    @Test
+    public void testLatencyHistogramPercentiles() {
+        var histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(Duration.ofMillis(i).toNanos());
+        }
+
+        assertEquals(histogram.getCount(), 1000);
+        assertEquals(histogram.getMax(), Duration.ofMillis(1000));
+        assertEquals(histogram.getPercentile(50).toMillis(), 500, 500 * 0.04);
+        assertEquals(histogram.getPercentile(99).toMillis(), 990, 990 * 0.04);
+        assertEquals(histogram.getPercentile(100), Duration.ofMillis(1000));
+        assertEquals(new LatencyHistogram().getPercentile(50), Duration.ZERO);
+    }
+
+    @Test
+    public void testDebugLogsOnlyChangedResults() {
+        var logger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger("common-test-utils.waiter");
+        var appender = new ListAppender<ILoggingEvent>();
+        appender.start();
+        logger.addAppender(appender);
+
+        try {
+            var counter = new AtomicInteger();
+            Waiter.<Integer>newBuilder()
+                    .setSupplier(counter::incrementAndGet)
+                    .setResultToString(value -> value < 10 ? "same" : "changed")
+                    .setTimeout(Duration.ofSeconds(10))
+                    .setIdleDuration(Duration.ofMillis(1))
+                    .setDebug(true)
+                    .setDebugInterval(Duration.ZERO)
+                    .build()
+                    .waitCondition(value -> value == 12);
+
+            var messages = appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+            assertEquals(messages.size(), 2);
+            assertEquals(messages.get(0), "same");
+            assertTrue(messages.get(1).startsWith("changed"));
+            assertTrue(messages.get(1).contains("previous 8 polls not logged"));
+        } finally {
+            logger.detachAppender(appender);
+        }
+    }
+
+    @Test
+    public void testDebugIntervalLimitsResultToStringCalls() {
+        var stringified = new AtomicInteger();
+        var counter = new AtomicInteger();
+        Waiter.<Integer>newBuilder()
+                .setSupplier(counter::incrementAndGet)
+                .setResultToString(value -> {
+                    stringified.incrementAndGet();
+                    return String.valueOf(value);
+                })
+                .setTimeout(Duration.ofSeconds(10))
+                .setIdleDuration(Duration.ofMillis(1))
+                .setDebug(true)
+                .setDebugInterval(Duration.ofMinutes(1))
+                .build()
+                .waitCondition(value -> value == 20);
+
+        // First and final results only
+        assertEquals(stringified.get(), 2);
+    }
+
+    @Test
+    public void testDebugAlwaysLogsFinalResult() {
+        var logger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger("common-test-utils.waiter");
+        var appender = new ListAppender<ILoggingEvent>();
+        appender.start();
+        logger.addAppender(appender);
+
+        try {
+            var counter = new AtomicInteger();
+            Waiter.<Integer>newBuilder()
+                    .setSupplier(counter::incrementAndGet)
+                    .setResultToString(String::valueOf)
+                    .setTimeout(Duration.ofSeconds(10))
+                    .setIdleDuration(Duration.ofMillis(1))
+                    .setDebug(true)
+                    .setDebugInterval(Duration.ofMinutes(1))
+                    .build()
+                    .waitConditionAsync(value -> value == 5)
+                    .join();
+
+            var messages = appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+            assertEquals(messages.size(), 2);
+            assertEquals(messages.get(0), "1");
+            assertTrue(messages.get(1).startsWith("5"));
+            assertTrue(messages.get(1).contains("previous 3 polls not logged"));
+        } finally {
+            logger.detachAppender(appender);
+        }
+    }
+
+    @Test
+    public void testWaiterCompletesFromFutureSignal() {
+        var event = new CompletableFuture<String>();
+        var waiter = Waiter.<String>newBuilder()
+                .setSupplier(() -> "pending")
+                .setResultToString(String::valueOf)
+                .setTimeout(Duration.ofSeconds(30))
+                .setIdleDuration(Duration.ofSeconds(20))
+                .setSignal(WaiterSignal.from(event))
+                .build();
+
+        CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS).execute(() -> event.complete("done"));
+
+        var start = System.nanoTime();
+        assertEquals(waiter.waitCondition("done"::equals), "done");
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(10)) < 0);
+    }
+
+    @Test
+    public void testAsyncWaiterCompletesFromPublisherSignal() {
+        try (var publisher = new SubmissionPublisher<String>()) {
+            var waiter = Waiter.<String>newBuilder()
+                    .setSupplier(() -> "pending")
+                    .setResultToString(String::valueOf)
+                    .setTimeout(Duration.ofSeconds(30))
+                    .setIdleDuration(Duration.ofSeconds(20))
+                    .setSignal(WaiterSignal.from(publisher))
+                    .build();
+
+            var start = System.nanoTime();
+            var future = waiter.waitConditionAsync("done"::equals);
+            publisher.submit("in progress");
+            publisher.submit("done");
+
+            assertEquals(future.join(), "done");
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(10)) < 0);
+        }
+    }
+
+    @Test
+    public void testCallbackEndpointWakesWaiterUp() throws Exception {
+        var state = new AtomicReference<>("pending");
+        var signal = new WaiterSignal<String>();
+
+        try (var callback = CallbackEndpoint.start(signal); var client = HttpClient.newHttpClient()) {
+            var waiter = Waiter.<String>newBuilder()
+                    .setSupplier(state::get)
+                    .setResultToString(String::valueOf)
+                    .setTimeout(Duration.ofSeconds(30))
+                    .setIdleDuration(Duration.ofSeconds(20))
+                    .setSignal(signal)
+                    .build();
+
+            var future = waiter.waitConditionAsync("done"::equals);
+            state.set("done");
+            var response = client.send(HttpRequest.newBuilder(callback.getUri())
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build(), HttpResponse.BodyHandlers.discarding());
+
+            assertEquals(response.statusCode(), 204);
+            assertEquals(future.get(10, TimeUnit.SECONDS), "done");
+        }
+    }
+
+    @Test
+    public void testCallbackEndpointDeliversParsedBody() throws Exception {
+        var signal = new WaiterSignal<JSONObject>();
+
+        try (var callback = CallbackEndpoint.start(signal, JSONObject::new); var client = HttpClient.newHttpClient()) {
+            var waiter = Waiter.<JSONObject>newBuilder()
+                    .setSupplier(() -> new JSONObject().put("status", "pending"))
+                    .setResultToString(JSONObject::toString)
+                    .setTimeout(Duration.ofSeconds(30))
+                    .setIdleDuration(Duration.ofSeconds(20))
+                    .setSignal(signal)
+                    .build();
+
+            var future = waiter.waitConditionAsync(json -> "done".equals(json.getString("status")));
+            var invalid = client.send(HttpRequest.newBuilder(callback.getUri())
+                    .POST(HttpRequest.BodyPublishers.ofString("not a json"))
+                    .build(), HttpResponse.BodyHandlers.discarding());
+            client.send(HttpRequest.newBuilder(callback.getUri())
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"status\":\"done\"}"))
+                    .build(), HttpResponse.BodyHandlers.discarding());
+
+            assertEquals(invalid.statusCode(), 400);
+            assertEquals(future.get(10, TimeUnit.SECONDS).getString("status"), "done");
+        }
+    }
+
+    @Test
+    public void testCanWaitForBatch() {
+        var first = new AtomicInteger();
+        var second = new AtomicInteger();
+
+        var results = BatchWaiter.<String, Integer>newBuilder()
+                .setResultToString(String::valueOf)
+                .setTimeout(Duration.ofSeconds(10))
+                .setIdleDuration(Duration.ofMillis(10))
+                .add("first", first::incrementAndGet, value -> value >= 3)
+                .add("second", second::incrementAndGet, value -> value >= 5)
+                .build()
+                .waitAll();
+
+        assertEquals(results, Map.of("first", 3, "second", 5));
+        // Satisfied entries are not polled anymore
+        assertEquals(first.get(), 3);
+    }
+
+    @Test
+    public void testBatchReportsAllPendingEntries() {
+        var waiter = BatchWaiter.<Integer, Response>newBuilder()
+                .setResultToString(Response::asString)
+                .setTimeout(Duration.ofSeconds(1))
+                .setIdleDuration(Duration.ofMillis(100))
+                .add(1, () -> new RequestBuilder().get(baseUrl + "/success"), response -> response.statusCode() == 200)
+                .add(2, () -> new RequestBuilder().get(baseUrl + "/success"), response -> response.statusCode() == 20)
+                .add(3, () -> new RequestBuilder().get(baseUrl + "/success"), response -> response.statusCode() == 20)
+                .build();
+
+        var ex = expectThrows(TimeExceededRuntimeException.class, waiter::waitAll);
+        assertTrue(ex.getMessage().contains("Expected condition not met for 2 of 3 entries"));
+        assertTrue(ex.getMessage().contains("2: {\"a\":1}"));
+        assertTrue(ex.getMessage().contains("3: {\"a\":1}"));
+        assertFalse(ex.getMessage().contains("1: {\"a\":1}"));
+    }
+
+    @Test
+    public void testBatchInterruptsHangingSupplierAtDeadline() throws InterruptedException {
+        var interrupted = new CountDownLatch(1);
+        var waiter = BatchWaiter.<String, Integer>newBuilder()
+                .setResultToString(String::valueOf)
+                .setTimeout(Duration.ofMillis(300))
+                .add("hanging", () -> {
+                    try {
+                        Thread.sleep(Duration.ofSeconds(30));
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                    }
+                    return 0;
+                }, value -> value == 1)
+                .build();
+
+        long start = System.nanoTime();
+        var ex = expectThrows(TimeExceededRuntimeException.class, waiter::waitAll);
+
+        assertTrue(ex.getMessage().contains("Expected condition not met for 1 of 1 entries"));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 5000);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testBatchRejectsDuplicateKey() {
+        var builder = BatchWaiter.<String, Integer>newBuilder()
+                .add("first", () -> 1, value -> value == 1);
+
+        var ex = expectThrows(IllegalArgumentException.class, () -> builder.add("first", () -> 2, value -> value == 2));
+        assertEquals(ex.getMessage(), "Duplicate key: first");
+    }
+
     @Test
     public void testWithIncorrectId() {
         class TestClass extends Controller<TestClass> {
@@ -4,21 +4,39 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import controllers.GraphQL;
+import controllers.GraphQLBatcher;
+import controllers.GraphQLQueries;
+import controllers.GraphQLResponseReader;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 import static org.mockito.Mockito.*;
 import static org.testng.Assert.*;
@@ -32,7 +50,7 @@ public class GraphQLTest {
     public void startServer() throws IOException {
         server = HttpServer.create(new InetSocketAddress(0), 0); // automatically assign a free port
         server.createContext("/", new JsonHandler());
-        server.setExecutor(null);
+        server.setExecutor(Executors.newCachedThreadPool());
         server.start();
 
         int port = server.getAddress().getPort();
@@ -134,6 +152,102 @@ public class GraphQLTest {
                 }""");
     }
 
+    @Test
+    public void testQueryDocumentIsLoadedOnce() throws NoSuchAlgorithmException {
+        var document = GraphQLQueries.get("/queries/user.graphql");
+
+        assertSame(GraphQLQueries.get("/queries/user.graphql"), document);
+        assertEquals(GraphQL.getGraphQLQuery("/queries/user.graphql").getString("query"), document.text());
+        var hash = MessageDigest.getInstance("SHA-256").digest(document.text().getBytes(StandardCharsets.UTF_8));
+        assertEquals(document.sha256Hash(), HexFormat.of().formatHex(hash));
+    }
+
+    @Test
+    public void testQueryDocumentCanBeMinified() {
+        var document = GraphQLQueries.get("/queries/user.graphql", true);
+
+        assertEquals(document.text(), "query User($id:ID!$locale:String){user(id:$id){id "
+                + "name(locale:$locale fallback:\"n/a, # not a comment\")...UserFields}}");
+        assertNotEquals(document.sha256Hash(), GraphQLQueries.get("/queries/user.graphql").sha256Hash());
+    }
+
+    @Test
+    public void testCanSendPersistedQuery() {
+        JsonHandler.APQ_REQUESTS.set(0);
+        var graphQL = new GraphQL(baseUrl + "/apq", "CP_ADMIN_TOKEN");
+        var document = GraphQLQueries.get("/queries/user.graphql", true);
+
+        // Unknown hash: the full query is sent after the hash
+        var r = graphQL.sendPersisted(document, new JSONObject().put("id", 1));
+        assertEquals(r.asString(), """
+                {"data":{"a":1}}""");
+        assertEquals(JsonHandler.APQ_REQUESTS.get(), 2);
+
+        // Known hash: only the hash is sent
+        graphQL.sendPersisted(document, new JSONObject().put("id", 2));
+        assertEquals(JsonHandler.APQ_REQUESTS.get(), 3);
+    }
+
+    @Test
+    public void testResponseReaderReadsOnlySelectedPaths() {
+        var body = """
+                {
+                  "extensions": {"cost": [1, 2.5e3, true, null], "note": "skipped \\" } ] {"},
+                  "data": {
+                    "users": {
+                      "total": 2,
+                      "items": [{"id": 1, "name": "a"}, {"id": 2, "name": "b}"}],
+                      "page": {"next": null}
+                    },
+                    "count": 5 ,
+                    "flag": true
+                    ,
+                    "meta": "m",
+                    "other": {"users": {"total": 3}}
+                  }
+                }""";
+
+        var result = GraphQLResponseReader.read(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+                true, "users.total", "users.items", "meta", "missing.path");
+
+        assertFalse(result.hasErrors());
+        assertEquals(result.get("users.total"), 2);
+        assertEquals(result.getJsonArray("users.items").getJSONObject(1).getString("name"), "b}");
+        assertEquals(result.get("meta"), "m");
+        assertNull(result.get("missing.path"));
+        assertEquals(result.data().size(), 3);
+    }
+
+    @Test
+    public void testResponseReaderFailsOnErrors() {
+        var errorsFirst = """
+                {"errors":[{"message":"error"}],"data":{"a":1}}""";
+        var errorsLast = """
+                {"data":{"a":1},"errors":[{"message":"error"}]}""";
+
+        for (var body : List.of(errorsFirst, errorsLast)) {
+            var ex = expectThrows(AssertionError.class, () -> GraphQLResponseReader.read(
+                    new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), true, "a"));
+            assertTrue(ex.getMessage().contains("Response has errors! expected [false] but found [true]"));
+        }
+
+        var result = GraphQLResponseReader.read(
+                new ByteArrayInputStream(errorsFirst.getBytes(StandardCharsets.UTF_8)), false, "a");
+        assertTrue(result.hasErrors());
+        assertEquals(result.errors().getJSONObject(0).getString("message"), "error");
+        assertEquals(result.get("a"), 1);
+    }
+
+    @Test
+    public void testCanSendStreamingRequest() {
+        var result = new GraphQL(baseUrl + "/success", "CP_ADMIN_TOKEN").sendStreaming(new JSONObject(), false, "a");
+        assertEquals(result.get("a"), 1);
+
+        var graphQL = new GraphQL(baseUrl + "/error", "CP_ADMIN_TOKEN");
+        var ex = expectThrows(AssertionError.class, () -> graphQL.sendStreaming(new JSONObject(), false, "a"));
+        assertTrue(ex.getMessage().contains("Response has errors! expected [false] but found [true]"));
+    }
+
     @Test
     public void testCanSendGraphQLRequestWithArray() {
         var graphQL = new GraphQL(baseUrl + "/success", "CP_ADMIN_TOKEN");
@@ -143,6 +257,138 @@ public class GraphQLTest {
                 {"data":{"a":1}}""");
     }
 
+    @Test
+    public void testCanSendGraphQLRequestAsync() {
+        var graphQL = new GraphQL(baseUrl + "/success", "CP_ADMIN_TOKEN");
+        var r = graphQL.sendAsync(new JSONObject()).join();
+
+        assertEquals(r.statusCode(), 200);
+        assertEquals(r.asString(), """
+                {"data":{"a":1}}""");
+        assertEquals(r.jsonPath().getInt("data.a"), 1);
+    }
+
+    @Test
+    public void testCanSendGraphQLRequestAsyncWithHasErrorsTrueIfErrorsInResponse() {
+        var graphQL = new GraphQL(baseUrl + "/error", "CP_ADMIN_TOKEN");
+        var r = graphQL.sendAsync(new JSONObject(), true).join();
+
+        assertEquals(r.asString(), """
+                {"data":{"a":1},"errors":[{"message":"error"}]}""");
+    }
+
+    @Test
+    public void testSendAsyncFailsIfErrorsInResponse() {
+        var graphQL = new GraphQL(baseUrl + "/error", "CP_ADMIN_TOKEN");
+
+        var ex = expectThrows(CompletionException.class, () -> graphQL.sendAsync(new JSONObject()).join());
+        assertTrue(ex.getCause() instanceof AssertionError);
+        assertTrue(ex.getCause().getMessage().contains("Response has errors! expected [false] but found [true]"));
+    }
+
+    @Test
+    public void testSendAsyncFailsIfUnexpectedStatusCode() {
+        var graphQL = new GraphQL(baseUrl + "/unknown", "CP_ADMIN_TOKEN");
+
+        var ex = expectThrows(CompletionException.class, () -> graphQL.sendAsync(new JSONObject(), null, true).join());
+        assertTrue(ex.getCause() instanceof AssertionError);
+        assertTrue(ex.getCause().getMessage().contains("expected [200] but found [404]"));
+    }
+
+    @Test
+    public void testCanSendGraphQLBatchAsync() {
+        var graphQL = new GraphQL(baseUrl + "/batch", "CP_ADMIN_TOKEN");
+        var r = graphQL.sendAsync(new JSONArray().put(new JSONObject()).put(new JSONObject())).join();
+
+        assertEquals(r.asString(), """
+                [{"data":{"a":1}},{"data":{"a":2}}]""");
+    }
+
+    @Test
+    public void testSendAsyncRespectsConcurrencyLimit() {
+        JsonHandler.IN_FLIGHT.set(0);
+        JsonHandler.MAX_IN_FLIGHT.set(0);
+        var graphQL = new GraphQL(baseUrl + "/slow", "CP_ADMIN_TOKEN", 2);
+
+        var responses = IntStream.range(0, 10)
+                .mapToObj(i -> graphQL.sendAsync(new JSONObject().put("i", i)))
+                .toList();
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).join();
+
+        // Every request completed with its own response
+        for (var i = 0; i < responses.size(); i++) {
+            assertEquals(responses.get(i).join().statusCode(), 200);
+            assertEquals(responses.get(i).join().jsonPath().getInt("data.i"), i);
+        }
+        assertTrue(JsonHandler.MAX_IN_FLIGHT.get() <= 2, "In flight: " + JsonHandler.MAX_IN_FLIGHT.get());
+
+        // The queue is drained and every permit is returned, so new requests start right away
+        var next = IntStream.range(0, 2)
+                .mapToObj(i -> graphQL.sendAsync(new JSONObject().put("i", i)))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(next).orTimeout(5, TimeUnit.SECONDS).join();
+    }
+
+    @Test
+    public void testSendAsyncFailsIfResponseIsNotJson() {
+        var graphQL = new GraphQL(baseUrl + "/not-json", "CP_ADMIN_TOKEN");
+
+        var ex = expectThrows(CompletionException.class, () -> graphQL.sendAsync(new JSONObject()).join());
+        assertTrue(ex.getCause() instanceof AssertionError);
+        assertTrue(ex.getCause().getMessage().contains("Response is not a JSON! Response: not a json"));
+    }
+
+    @Test
+    public void testBatcherSendsOperationsWithinWindowAsOneRequest() {
+        JsonHandler.BATCHES.set(0);
+        var batcher = GraphQLBatcher.newBuilder(new GraphQL(baseUrl + "/batch-echo", "CP_ADMIN_TOKEN"))
+                .setWindow(Duration.ofMillis(200))
+                .build();
+
+        var responses = IntStream.range(0, 5)
+                .mapToObj(i -> batcher.send(new JSONObject().put("i", i)))
+                .toList();
+
+        for (var i = 0; i < responses.size(); i++) {
+            assertEquals(responses.get(i).join().asString(), STR."""
+                    {"data":{"i":\{i}}}""");
+        }
+        assertEquals(JsonHandler.BATCHES.get(), 1);
+    }
+
+    @Test
+    public void testBatcherSendsFullBatchesRightAway() {
+        JsonHandler.BATCHES.set(0);
+        var batcher = GraphQLBatcher.newBuilder(new GraphQL(baseUrl + "/batch-echo", "CP_ADMIN_TOKEN"))
+                .setWindow(Duration.ofMinutes(1))
+                .setMaxBatchSize(2)
+                .build();
+
+        var responses = IntStream.range(0, 5)
+                .mapToObj(i -> batcher.send(new JSONObject().put("i", i)))
+                .toList();
+        responses.get(3).join();
+        assertFalse(responses.get(4).isDone());
+
+        batcher.flush();
+        assertEquals(responses.get(4).join().jsonPath().getInt("data.i"), 4);
+        assertEquals(JsonHandler.BATCHES.get(), 3);
+    }
+
+    @Test
+    public void testBatcherChecksEveryOperationSeparately() {
+        var batcher = GraphQLBatcher.newBuilder(new GraphQL(baseUrl + "/batch-echo", "CP_ADMIN_TOKEN")).build();
+
+        var ok = batcher.send(new JSONObject().put("i", 0));
+        var failed = batcher.send(new JSONObject().put("i", 1).put("fail", true));
+        var allowed = batcher.send(new JSONObject().put("i", 2).put("fail", true), true);
+
+        assertEquals(ok.join().jsonPath().getInt("data.i"), 0);
+        var ex = expectThrows(CompletionException.class, failed::join);
+        assertTrue(ex.getCause().getMessage().contains("Response has errors! expected [false] but found [true]"));
+        assertEquals(allowed.join().jsonPath().getString("errors[0].message"), "error");
+    }
+
     @Test
     public void testSendMultipartWithFile() {
         var file = Path.of("src/test/resources/files/1.png");
@@ -156,6 +402,25 @@ public class GraphQLTest {
     }
 
 
+    @Test
+    public void testSendMultipartStreamsFileContent() throws IOException {
+        var file = Files.createTempFile("multipart", ".txt");
+        var content = "x".repeat(1024 * 1024);
+        Files.writeString(file, content);
+
+        try {
+            var graphQL = new GraphQL(baseUrl + "/echo", "token");
+            var body = graphQL.sendMultipart(Map.of("name", "value", "file", file), "token").body();
+
+            assertTrue(body.contains("name=\"name\"\r\n\r\nvalue\r\n"));
+            assertTrue(body.contains("filename=\"" + file.getFileName() + "\"\r\nContent-Type: "));
+            assertTrue(body.contains("\r\n\r\n" + content + "\r\n--"));
+            assertTrue(body.endsWith("--"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
     @Test
     public void testIOExceptionWrappedInRuntimeException() throws Exception {
         var graphql = new GraphQL("http://localhost/fake", "token");
@@ -182,7 +447,7 @@ public class GraphQLTest {
     }
 
     @Test
-    public void testIOExceptionFromReadAllBytesIsWrapped() {
+    public void testIOExceptionFromOpeningFileIsWrapped() {
         var path = Path.of("src/test/resources/fake.txt"); // неважливо який, бо мокаємо
         var graphQL = new GraphQL("http://localhost/doesnt-matter", "token");
 
@@ -190,8 +455,8 @@ public class GraphQLTest {
             filesMock.when(() -> Files.probeContentType(any(Path.class)))
                     .thenReturn("text/plain");
 
-            filesMock.when(() -> Files.readAllBytes(any(Path.class)))
-                    .thenThrow(new IOException("Simulated IO read error"));
+            filesMock.when(() -> Files.notExists(any(Path.class)))
+                    .thenReturn(true);
 
             var ex = expectThrows(IllegalStateException.class, () ->
                     graphQL.sendMultipart(Map.of("file", path), "token"));
@@ -203,17 +468,102 @@ public class GraphQLTest {
 
     static class JsonHandler implements HttpHandler {
 
+        static final AtomicInteger IN_FLIGHT = new AtomicInteger();
+        static final AtomicInteger MAX_IN_FLIGHT = new AtomicInteger();
+        static final AtomicInteger BATCHES = new AtomicInteger();
+        static final AtomicInteger APQ_REQUESTS = new AtomicInteger();
+        static final Set<String> PERSISTED = ConcurrentHashMap.newKeySet();
+
         private final Map<String, String> responses = Map.of(
                 "/success", """
                         {"data":{"a":1}}""",
                 "/error", """
-                        {"data":{"a":1},"errors":[{"message":"error"}]}"""
+                        {"data":{"a":1},"errors":[{"message":"error"}]}""",
+                "/apq-not-found", """
+                        {"errors":[{"message":"PersistedQueryNotFound"}]}""",
+                "/batch", """
+                        [{"data":{"a":1}},{"data":{"a":2}}]""",
+                "/not-json", "not a json"
         );
 
         @Override
         public void handle(HttpExchange exchange) throws IOException {
             var path = exchange.getRequestURI().getPath();
 
+            if ("/slow".equals(path)) {
+                MAX_IN_FLIGHT.accumulateAndGet(IN_FLIGHT.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    IN_FLIGHT.decrementAndGet();
+                }
+                JSONObject request;
+                try (var is = exchange.getRequestBody()) {
+                    request = new JSONObject(new String(is.readAllBytes(), StandardCharsets.UTF_8));
+                }
+                var response = new JSONObject()
+                        .put("data", new JSONObject().put("i", request.optInt("i")))
+                        .toString()
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, response.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(response);
+                }
+                return;
+            }
+
+            if ("/apq".equals(path)) {
+                APQ_REQUESTS.incrementAndGet();
+                JSONObject request;
+                try (var is = exchange.getRequestBody()) {
+                    request = new JSONObject(new String(is.readAllBytes(), StandardCharsets.UTF_8));
+                }
+                var hash = request.getJSONObject("extensions").getJSONObject("persistedQuery").getString("sha256Hash");
+                if (request.has("query")) {
+                    PERSISTED.add(hash);
+                }
+                path = PERSISTED.contains(hash) ? "/success" : "/apq-not-found";
+            }
+
+            if ("/batch-echo".equals(path)) {
+                BATCHES.incrementAndGet();
+                JSONArray operations;
+                try (var is = exchange.getRequestBody()) {
+                    operations = new JSONArray(new String(is.readAllBytes(), StandardCharsets.UTF_8));
+                }
+                var results = new JSONArray();
+                for (var i = 0; i < operations.length(); i++) {
+                    var operation = operations.getJSONObject(i);
+                    var result = new JSONObject().put("data", new JSONObject().put("i", operation.getInt("i")));
+                    if (operation.optBoolean("fail")) {
+                        result.put("errors", new JSONArray().put(new JSONObject().put("message", "error")));
+                    }
+                    results.put(result);
+                }
+                var response = results.toString().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, response.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(response);
+                }
+                return;
+            }
+
+            if ("/echo".equals(path)) {
+                byte[] request;
+                try (var is = exchange.getRequestBody()) {
+                    request = is.readAllBytes();
+                }
+                exchange.sendResponseHeaders(200, request.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(request);
+                }
+                return;
+            }
+
             if ("/multipart".equals(path)) {
                 var response = """
                         {"data":{"multipart":true}}""";
@@ -0,0 +1,137 @@
+package tests;
+
+import comparison.JsonComparator;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.testng.Assert.*;
+
+public class JsonComparatorTest {
+
+    private final JsonComparator strict = JsonComparator.newBuilder().build();
+
+    @Test
+    public void testEqualDocuments() {
+        var expected = new JSONObject("{\"a\": 1, \"b\": [1.0, \"x\", null, {\"c\": true}]}");
+        var actual = new JSONObject("{\"b\": [1, \"x\", null, {\"c\": true}], \"a\": 1.00}");
+
+        assertTrue(strict.compare(actual, expected).isEmpty());
+        strict.assertEquals(actual, expected);
+    }
+
+    @Test
+    public void testDifferencesArePathed() {
+        var expected = new JSONObject("{\"a\": {\"b\": [1, 2]}, \"c\": \"x\", \"d.e\": 1}");
+        var actual = new JSONObject("{\"a\": {\"b\": [1, 3]}, \"d.e\": 2, \"f\": null}");
+
+        assertEquals(strict.compare(actual, expected).stream().sorted().toList(), List.of(
+                "$.a.b[1]: expected 2 but was 3",
+                "$.c: expected \"x\" but field is missing",
+                "$.f: unexpected field with value null",
+                "$[\"d.e\"]: expected 1 but was 2"));
+    }
+
+    @Test
+    public void testArrayLengthDifference() {
+        assertEquals(strict.compare(new JSONArray("[1]"), new JSONArray("[1, 2]")),
+                List.of("$: expected 2 elements but was 1"));
+    }
+
+    @Test
+    public void testFailFastStopsAtFirstDifference() {
+        var comparator = JsonComparator.newBuilder().setFailFast(true).build();
+
+        assertEquals(comparator.compare(array(1, 1001), array(0, 1000)).size(), 1);
+    }
+
+    @Test
+    public void testDifferencesAreBounded() {
+        var comparator = JsonComparator.newBuilder().setMaxDifferences(3).build();
+
+        assertEquals(comparator.compare(array(1, 1001), array(0, 1000)),
+                List.of("$[0].id: expected 0 but was 1", "$[1].id: expected 1 but was 2",
+                        "$[2].id: expected 2 but was 3"));
+    }
+
+    @Test
+    public void testIgnoredPaths() {
+        var comparator = JsonComparator.newBuilder()
+                .setIgnoredPaths("id", "items[].createdAt", "*.version")
+                .build();
+        var expected = new JSONObject("{\"id\": 1, \"items\": [{\"n\": 1, \"createdAt\": 1}], "
+                + "\"meta\": {\"version\": 1}}");
+        var actual = new JSONObject("{\"id\": 2, \"items\": [{\"n\": 1, \"createdAt\": 2}], "
+                + "\"meta\": {\"version\": 2}}");
+
+        assertTrue(comparator.compare(actual, expected).isEmpty());
+        assertEquals(comparator.compare(actual.put("items", new JSONArray("[{\"n\": 2}]")), expected),
+                List.of("$.items[0].n: expected 1 but was 2"));
+    }
+
+    @Test
+    public void testIgnoredPathsMergeAnyKeyWithExactKey() {
+        var comparator = JsonComparator.newBuilder().setIgnoredPaths("a.x", "*.y", "*.z.w").build();
+        var expected = new JSONObject("{\"a\": {\"x\": 1, \"y\": 1, \"z\": {\"w\": 1, \"v\": 1}}, "
+                + "\"b\": {\"x\": 1, \"y\": 1}}");
+        var actual = new JSONObject("{\"a\": {\"x\": 2, \"y\": 2, \"z\": {\"w\": 2, \"v\": 1}}, "
+                + "\"b\": {\"x\": 2, \"y\": 2}}");
+
+        assertEquals(comparator.compare(actual, expected), List.of("$.b.x: expected 1 but was 2"));
+    }
+
+    @Test
+    public void testIgnoredPathsRejectArrayIndexes() {
+        var builder = JsonComparator.newBuilder();
+
+        var ex = expectThrows(IllegalArgumentException.class, () -> builder.setIgnoredPaths("id", "items[0].id"));
+        assertTrue(ex.getMessage().contains("items[0].id"));
+        builder.setIgnoredPaths("items[*].id", "items[].name");
+    }
+
+    @Test
+    public void testUnorderedArrays() {
+        var comparator = JsonComparator.newBuilder().setOrdered(false).setIgnoredPaths("createdAt").build();
+        var expected = new JSONArray("[{\"id\": 1, \"createdAt\": 1}, {\"id\": 2}, {\"id\": 2}, [3, 4]]");
+        var actual = new JSONArray("[[4, 3], {\"id\": 2}, {\"id\": 1, \"createdAt\": 2}, {\"id\": 2.0}]");
+
+        assertTrue(comparator.compare(actual, expected).isEmpty());
+        assertEquals(comparator.compare(new JSONArray("[{\"id\": 1}, {\"id\": 2}, [3, 4], {\"id\": 5}]"), expected),
+                List.of("$[2]: expected element not found: {\"id\":2}", "$[3]: unexpected element: {\"id\":5}"));
+    }
+
+    @Test(timeOut = 10_000)
+    public void testLargeUnorderedArrays() {
+        var comparator = JsonComparator.newBuilder().setOrdered(false).build();
+        var expected = array(0, 50_000);
+        var actual = new JSONArray();
+        for (int i = expected.length() - 1; i >= 0; i--) {
+            actual.put(expected.get(i));
+        }
+
+        assertTrue(comparator.compare(actual, expected).isEmpty());
+    }
+
+    @Test
+    public void testAssertionMessage() {
+        var ex = expectThrows(AssertionError.class, () ->
+                strict.assertEquals(new JSONObject().put("a", "x".repeat(200)), new JSONObject().put("a", 1)));
+
+        assertTrue(ex.getMessage().startsWith("JSON documents are different:\n$.a: expected 1 but was \"xxx"));
+        assertTrue(ex.getMessage().endsWith("..."));
+    }
+
+    @Test
+    public void testMaxDifferencesMustBePositive() {
+        expectThrows(IllegalArgumentException.class, () -> JsonComparator.newBuilder().setMaxDifferences(0));
+    }
+
+    private static JSONArray array(final int from, final int to) {
+        var array = new JSONArray();
+        IntStream.range(from, to).forEach(i -> array.put(new JSONObject().put("id", i)));
+        return array;
+    }
+}
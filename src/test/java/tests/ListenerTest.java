@@ -1,14 +1,22 @@
 package tests;
 
+import config.LoadConfigUtils;
+import controllers.WaiterMetrics;
 import listeners.BaseTestListener;
+import org.mockito.MockedStatic;
 import org.testng.Assert;
+import org.testng.ISuite;
 import org.testng.ITestResult;
 import org.testng.TestNG;
 import org.testng.annotations.Test;
+import serializer.JsonDeserializer;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static org.mockito.Mockito.*;
+
 public class ListenerTest extends BaseTestListener {
 
     @Test
@@ -44,4 +52,93 @@ public class ListenerTest extends BaseTestListener {
         Assert.assertTrue(log.contains("failTest"));
         Assert.assertTrue(log.contains("FailingTest"));
     }
+
+    @Test
+    public void shouldPrewarmFixturesDeclaredInSuite() {
+        var suite = mock(ISuite.class);
+        when(suite.getParameter(PREWARM_PROPERTY)).thenReturn(" /jsons/ja.json, /jsons/ ,");
+
+        try (MockedStatic<JsonDeserializer> mocked = mockStatic(JsonDeserializer.class)) {
+            new BaseTestListener().onStart(suite);
+
+            mocked.verify(() -> JsonDeserializer.prewarmResources(List.of("/jsons/ja.json", "/jsons/")));
+        }
+    }
+
+    @Test
+    public void shouldPreloadSsmParametersDeclaredInSuite() {
+        var suite = mock(ISuite.class);
+        when(suite.getParameter(SSM_PRELOAD_PROPERTY)).thenReturn("/qa/app, /qa/shared");
+
+        try (MockedStatic<LoadConfigUtils> mocked = mockStatic(LoadConfigUtils.class)) {
+            mocked.when(() -> LoadConfigUtils.preloadSsmParameters("/qa/app", true))
+                    .thenThrow(new IllegalStateException("SSM failure"));
+
+            new BaseTestListener().onStart(suite);
+
+            mocked.verify(() -> LoadConfigUtils.preloadSsmParameters("/qa/app", true));
+            mocked.verify(() -> LoadConfigUtils.preloadSsmParameters("/qa/shared", true));
+        }
+    }
+
+    @Test
+    public void shouldPreloadSsmParametersInBackgroundIfSnapshotIsLoaded() {
+        var suite = mock(ISuite.class);
+        when(suite.getParameter(SSM_PRELOAD_PROPERTY)).thenReturn("/qa/app");
+
+        try (MockedStatic<LoadConfigUtils> mocked = mockStatic(LoadConfigUtils.class)) {
+            mocked.when(LoadConfigUtils::loadSsmSnapshot).thenReturn(3);
+
+            new BaseTestListener().onStart(suite);
+
+            mocked.verify(() -> LoadConfigUtils.preloadSsmParametersInBackground("/qa/app", true));
+            mocked.verify(() -> LoadConfigUtils.preloadSsmParameters(anyString(), anyBoolean()), never());
+        }
+    }
+
+    @Test
+    public void shouldPreloadSsmParametersIfSnapshotFails() {
+        var suite = mock(ISuite.class);
+        when(suite.getParameter(SSM_PRELOAD_PROPERTY)).thenReturn("/qa/app");
+
+        try (MockedStatic<LoadConfigUtils> mocked = mockStatic(LoadConfigUtils.class)) {
+            mocked.when(LoadConfigUtils::loadSsmSnapshot).thenThrow(new IllegalArgumentException("Bad snapshot"));
+
+            new BaseTestListener().onStart(suite);
+
+            mocked.verify(() -> LoadConfigUtils.preloadSsmParameters("/qa/app", true));
+        }
+    }
+
+    @Test
+    public void shouldNotFailSuiteIfFixtureIsBroken() {
+        var suite = mock(ISuite.class);
+        when(suite.getParameter(PREWARM_PROPERTY)).thenReturn("/jsons/missing.json");
+
+        new BaseTestListener().onStart(suite);
+    }
+
+    @Test
+    public void shouldSkipPrewarmIfNothingDeclared() {
+        try (MockedStatic<JsonDeserializer> mocked = mockStatic(JsonDeserializer.class)) {
+            new BaseTestListener().onStart(mock(ISuite.class));
+
+            mocked.verifyNoInteractions();
+        }
+    }
+
+    @Test
+    public void shouldKeepWaiterStatisticsOfOtherSuites() {
+        var stats = WaiterMetrics.forName("listener-test");
+        var listener = new BaseTestListener();
+        var outer = mock(ISuite.class);
+        var inner = mock(ISuite.class);
+
+        listener.onStart(outer);
+        listener.onStart(inner);
+        listener.onFinish(inner);
+
+        Assert.assertSame(WaiterMetrics.getAll().get("listener-test"), stats);
+        listener.onFinish(outer);
+    }
 }
@@ -1,15 +1,25 @@
 package tests;
 
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 import org.mockito.MockedStatic;
 import org.testng.annotations.Test;
+import serializer.JsonArrayReader;
 import serializer.JsonDeserializer;
+import serializer.JsonIndex;
 import serializer.JsonResourceLoader;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import static org.mockito.Mockito.*;
 import static org.testng.Assert.*;
@@ -231,6 +241,26 @@ public class SerializerTest {
         assertTrue(r.similar(json.put("b", new JSONObject().put("c", 3).put("d", 1))));
     }
 
+    @Test
+    public void testUpdateParentInJsonArray() {
+        var array = new JSONArray("[{\"a\": {\"b\": 1}, \"c\": 1}]");
+
+        var r = updateJson(array, "[0].a", "updated");
+
+        assertTrue(r.similar(new JSONArray("[{\"a\": \"updated\", \"c\": 1}]")));
+        assertTrue(array.similar(new JSONArray("[{\"a\": {\"b\": 1}, \"c\": 1}]")));
+    }
+
+    @Test
+    public void testUpdateIsCaseSensitive() {
+        var json = new JSONObject().put("Name", 1);
+        var array = new JSONArray().put(new JSONObject().put("Name", 1));
+
+        assertTrue(updateJson(json, "name", 2).similar(json));
+        assertTrue(updateJson(json, Map.of("name", 2)).similar(json));
+        assertTrue(updateJson(array, "[0].name", 2).similar(array));
+    }
+
     @Test
     public void testUpdateFieldInInnerJsonArray() {
         var json = new JSONObject();
@@ -264,6 +294,104 @@ public class SerializerTest {
         assertTrue(r.similar(json));
     }
 
+    @Test
+    public void testUpdateDoesNotChangeSourceJson() {
+        var json = new JSONObject().put("a", 1).put("b", new JSONObject().put("c", 1));
+
+        var r = updateJson(json, Map.of("a", 2, "b.c", 2));
+
+        assertTrue(r.similar(new JSONObject().put("a", 2).put("b", new JSONObject().put("c", 2))));
+        assertTrue(json.similar(new JSONObject().put("a", 1).put("b", new JSONObject().put("c", 1))));
+    }
+
+    @Test
+    public void testUpdateFieldWithDotInName() {
+        var json = new JSONObject().put("a", new JSONObject().put("b.c", 1).put("b", 1));
+
+        var r = updateJson(json, "a[\"b.c\"]", 2);
+
+        assertTrue(r.similar(new JSONObject().put("a", new JSONObject().put("b.c", 2).put("b", 1))));
+    }
+
+    @Test
+    public void testUpdateWithNullRemovesField() {
+        var json = new JSONObject().put("a", 1).put("b", 2);
+
+        var r = updateJson(json, "a", null);
+
+        assertTrue(r.similar(new JSONObject().put("b", 2)));
+    }
+
+    @Test
+    public void testUpdateWithMapValue() {
+        var json = new JSONObject().put("a", 1);
+
+        var r = updateJson(json, "a", Map.of("b", 2));
+
+        assertTrue(r.similar(new JSONObject().put("a", new JSONObject().put("b", 2))));
+    }
+
+    @Test
+    public void testUpdateWithInvalidPath() {
+        var ex = expectThrows(IllegalArgumentException.class, () -> updateJson(new JSONObject(), "a[x].b", 1));
+        assertTrue(ex.getMessage().contains("Invalid array index 'x' in JSON path: a[x].b"));
+    }
+
+    @Test
+    public void testResourceIsParsedOnceAndCopied() {
+        var first = getResource("/jsons/update_test.json");
+        first.getJSONObject("c").put("a", "changed");
+
+        try (MockedStatic<JsonResourceLoader> mocked = mockStatic(JsonResourceLoader.class)) {
+            mocked.when(() -> JsonResourceLoader.getResourceAsStream("/jsons/update_test.json")).thenReturn(null);
+
+            var second = getResource("/jsons/update_test.json");
+            assertEquals(second.getJSONObject("c").getInt("a"), 2);
+
+            clearResourceCache();
+            var ex = expectThrows(IllegalArgumentException.class, () -> getResource("/jsons/update_test.json"));
+            assertTrue(ex.getMessage().contains("Can't find a file"));
+        } finally {
+            clearResourceCache();
+        }
+    }
+
+    @Test
+    public void testGenerateResources() {
+        var resources = generateResources("/jsons/obj_upd_par.json", 3);
+
+        assertEquals(resources.size(), 3);
+        assertNotSame(resources.get(0), resources.get(1));
+        for (var resource : resources) {
+            assertTrue(resource.getString("a").startsWith("Hello "));
+            assertFalse(resource.getString("a").contains("{$"));
+            assertTrue(resource.similar(getResource("/jsons/obj_upd_par.json")));
+        }
+        assertTrue(generateResources("/jsons/jo.json", 2).get(1).similar(new JSONObject().put("a", 1)));
+        for (var resource : generateResources("/jsons/caller.json", 2)) {
+            assertEquals(resource.getString("caller"), "serializer.JsonDeserializer.generateResources");
+        }
+    }
+
+    @Test
+    public void testResourceOfWrongType() {
+        expectThrows(JSONException.class, () -> getResource("/jsons/ja.json"));
+        expectThrows(JSONException.class, () -> getResources("/jsons/jo.json"));
+    }
+
+    @Test
+    public void testResourceWithTextAfterJson() {
+        var ex = expectThrows(JSONException.class, () -> getResource("/jsons/trailing.json"));
+        assertTrue(ex.getMessage().contains("Unexpected text after the JSON value"));
+    }
+
+    @Test
+    public void testCallerPlaceholderOfResource() {
+        // Cached and uncached calls name the same caller
+        assertEquals(getResource("/jsons/caller.json").getString("caller"), "serializer.JsonDeserializer.getResource");
+        assertEquals(getResource("/jsons/caller.json").getString("caller"), "serializer.JsonDeserializer.getResource");
+    }
+
     @Test
     public void testFindJsonInArrayIfArrayHasNotJsonObject() {
         var json = new JSONArray();
@@ -273,6 +401,168 @@ public class SerializerTest {
         findJsonInArray(json, "a", 1);
     }
 
+    @Test
+    public void testFindJsonInArrayMatchesJsonNullButNotMissingField() {
+        var json = new JSONArray();
+        json.put(new JSONObject().put("b", 1));
+        json.put(new JSONObject().put("a", JSONObject.NULL).put("b", 2));
+
+        assertEquals(findJsonInArray(json, "a", null).getInt("b"), 2);
+    }
+
+    @Test
+    public void testJsonIndexFindsAllMatches() {
+        var json = new JSONArray();
+        json.put(new JSONObject().put("a", 1).put("b", "x").put("id", 1));
+        json.put(new JSONObject().put("a", 1).put("b", "y").put("id", 2));
+        json.put(new JSONObject().put("a", 1).put("b", "x").put("id", 3));
+        json.put(new JSONObject().put("a", 1).put("id", 4));
+        json.put("not an object");
+
+        var index = JsonIndex.of(json, "a", "b");
+
+        assertEquals(index.findAll(1, "x").stream().map(o -> o.getInt("id")).toList(), List.of(1, 3));
+        assertEquals(index.findFirst(1, "y").getInt("id"), 2);
+        assertTrue(index.findAll(1, null).isEmpty());
+        assertTrue(index.findFirst(2, "x").similar(new JSONObject()));
+        assertEquals(JsonIndex.of(json, "a").findAll(1).size(), 4);
+    }
+
+    @Test
+    public void testJsonIndexRequiresValueForEveryField() {
+        var index = JsonIndex.of(new JSONArray(), "a", "b");
+
+        var ex = expectThrows(IllegalArgumentException.class, () -> index.findAll(1));
+        assertTrue(ex.getMessage().contains("Expected 2 values for fields [a, b] but got 1"));
+    }
+
+    @Test
+    public void testMemoryMappedFileContent() throws IOException {
+        assertNotNull(JsonResourceLoader.getResourceFile("/jsons/test_json.json"));
+        try (var reader = JsonResourceLoader.openReader("/jsons/test_json.json")) {
+            var content = new StringWriter();
+            reader.transferTo(content);
+            assertEquals(content.toString(), readStringFromFile("/jsons/test_json.json"));
+        }
+    }
+
+    @Test
+    public void testReadStringFromFileUsesResourceStream() {
+        try (MockedStatic<JsonResourceLoader> mocked = mockStatic(JsonResourceLoader.class)) {
+            mocked.when(() -> JsonResourceLoader.getResourceAsStream("/jsons/test_json.json"))
+                    .thenReturn(new ByteArrayInputStream("{\"a\":1}".getBytes(StandardCharsets.UTF_8)));
+
+            assertEquals(readStringFromFile("/jsons/test_json.json"), "{\"a\":1}");
+        }
+    }
+
+    @Test
+    public void testStreamArrayElements() {
+        try (var reader = streamResources("/jsons/ja.json")) {
+            var elements = reader.stream().toList();
+
+            assertTrue(new JSONArray(elements).similar(getResources("/jsons/ja.json")));
+            assertFalse(reader.hasNext());
+            expectThrows(NoSuchElementException.class, reader::next);
+        }
+    }
+
+    @Test
+    public void testStreamEmptyArray() {
+        try (MockedStatic<JsonResourceLoader> mocked = mockStatic(JsonResourceLoader.class)) {
+            mocked.when(() -> JsonResourceLoader.openReader("/jsons/empty.json"))
+                    .thenReturn(new StringReader(" [ ] "));
+
+            try (var reader = JsonArrayReader.open("/jsons/empty.json")) {
+                assertFalse(reader.hasNext());
+            }
+        }
+    }
+
+    @Test
+    public void testStreamArrayWithTrailingComma() {
+        try (MockedStatic<JsonResourceLoader> mocked = mockStatic(JsonResourceLoader.class)) {
+            mocked.when(() -> JsonResourceLoader.openReader("/jsons/trailing_comma.json"))
+                    .thenReturn(new StringReader("[1,]"));
+
+            try (var reader = JsonArrayReader.open("/jsons/trailing_comma.json")) {
+                assertEquals(reader.next(), 1);
+                var ex = expectThrows(JSONException.class, reader::hasNext);
+                assertTrue(ex.getMessage().contains("Expected a value before ']'"));
+            }
+        }
+    }
+
+    @Test
+    public void testStreamNotArray() {
+        try (var reader = JsonArrayReader.open("/jsons/test_json.json")) {
+            expectThrows(JSONException.class, reader::hasNext);
+        }
+    }
+
+    @Test
+    public void testStreamMissingFile() {
+        var ex = expectThrows(IllegalArgumentException.class, () -> JsonArrayReader.open("/nonexistent.json"));
+        assertTrue(ex.getMessage().contains("Can't find a file"));
+    }
+
+    @Test
+    public void testResourceLocationIsIndexed() {
+        var url = JsonResourceLoader.getResource("/jsons/jo.json");
+
+        assertNotNull(url);
+        assertSame(JsonResourceLoader.getResource("/jsons/jo.json"), url);
+        assertNull(JsonResourceLoader.getResource("/jsons/missing.json"));
+        assertNull(JsonResourceLoader.getResourceAsStream("/jsons/missing.json"));
+    }
+
+    @Test
+    public void testListResources() {
+        var resources = JsonResourceLoader.listResources("/jsons");
+
+        assertTrue(resources.containsAll(List.of("/jsons/ja.json", "/jsons/jo.json")));
+        assertEquals(JsonResourceLoader.listResources("/jsons/"), resources);
+        assertTrue(JsonResourceLoader.listResources("/missing").isEmpty());
+    }
+
+    @Test
+    public void testPrewarmResources() {
+        clearResourceCache();
+
+        assertEquals(prewarmResources(List.of("/jsons/jo.json", "/jsons/ja.json", "/jsons/jo.json")), 2);
+        try (MockedStatic<JsonResourceLoader> mocked = mockStatic(JsonResourceLoader.class)) {
+            assertTrue(getResources("/jsons/ja.json").similar(new JSONArray("[{\"a\":1}]")));
+            mocked.verifyNoInteractions();
+        }
+    }
+
+    @Test
+    public void testDataProviderOverNdjson() {
+        var rows = new ArrayList<Object[]>();
+        getDataProvider("/jsons/records.ndjson").forEachRemaining(rows::add);
+
+        assertEquals(rows.size(), 3);
+        assertEquals(((JSONObject) rows.get(0)[0]).getInt("id"), 1);
+        assertFalse(((JSONObject) rows.get(1)[0]).getString("a").contains("{$"));
+        assertTrue(((JSONArray) rows.get(2)[0]).similar(new JSONArray().put(3)));
+    }
+
+    @Test
+    public void testDataProviderOverJsonArray() {
+        var rows = getDataProvider("/jsons/array_upd_par.json");
+
+        assertTrue(rows.hasNext());
+        assertFalse(((JSONObject) rows.next()[0]).getString("a").contains("{$"));
+        assertFalse(rows.hasNext());
+        expectThrows(NoSuchElementException.class, rows::next);
+    }
+
+    @Test
+    public void testDataProviderMissingFile() {
+        var ex = expectThrows(IllegalArgumentException.class, () -> getDataProvider("/jsons/missing.ndjson"));
+        assertTrue(ex.getMessage().contains("Can't find a file"));
+    }
+
     @Test
     public void testExceptionWhenFileNotFound() {
         var ex = expectThrows(IllegalArgumentException.class, () ->